@@ -9,6 +9,7 @@ plugins {
   id("xyz.jpenilla.quiet-fabric-loom")
   id("me.modmuss50.mod-publish-plugin") version "1.1.0"
   id("xyz.jpenilla.resource-factory-fabric-convention") version "1.3.1"
+  id("me.champeau.jmh") version "0.7.3"
 }
 
 version = "1.3.0-SNAPSHOT"
@@ -67,7 +68,38 @@ fabricModJson {
   depends("adventure-platform-fabric", "*")
 }
 
+sourceSets.named("jmh") {
+  // Minecraft and mod dependencies are only added to the main classpaths by Loom
+  compileClasspath += sourceSets.main.get().compileClasspath
+  runtimeClasspath += sourceSets.main.get().runtimeClasspath
+}
+
+jmh {
+  jmhVersion = "1.37"
+  // gc.alloc.rate.norm
+  profilers.add("gc")
+  resultFormat = "JSON"
+  // e.g. -PjmhIncludes=ConsoleFloodBenchmark
+  providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
 tasks {
+  // Budgets left empty in the file are reported but not enforced until measured
+  val checkAllocationBudgets = register<JavaExec>("checkAllocationBudgets") {
+    group = "verification"
+    description = "Fails when a console hot path allocates more per call than its stored budget."
+    classpath = sourceSets.named("jmh").get().runtimeClasspath
+    mainClass = "xyz.jpenilla.betterfabricconsole.console.AllocationBudgets"
+    val budgets = layout.projectDirectory.file("src/jmh/resources/allocation-budgets.properties")
+    inputs.file(budgets)
+    args(budgets.asFile.absolutePath)
+    if (providers.gradleProperty("updateAllocationBudgets").isPresent) {
+      args("--update")
+    }
+  }
+  check {
+    dependsOn(checkAllocationBudgets)
+  }
   jar {
     from("LICENSE")
     archiveFileName.set("${project.name}-mc$minecraftVersion-${project.version}.jar")
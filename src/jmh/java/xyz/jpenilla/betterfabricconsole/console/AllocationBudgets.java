@@ -0,0 +1,202 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.sun.management.ThreadMXBean;
+import io.papermc.paper.console.HexFormattingConverter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.jline.reader.Candidate;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.reader.ParsedLine;
+import org.jline.reader.Parser;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+
+/**
+ * Checks bytes allocated per call on the console hot paths against the stored budgets.
+ *
+ * <p>Each path runs with fixed inputs until it is compiled, then allocation is read from
+ * {@link ThreadMXBean#getThreadAllocatedBytes(long)} over several rounds. The lowest round counts, so a
+ * stray deoptimization doesn't fail the check. Run by the {@code checkAllocationBudgets} task as part of
+ * {@code check}; pass {@code -PupdateAllocationBudgets} to rewrite the budgets from a run. A path without a
+ * budget fails the check, a path with an empty budget hasn't been measured yet and is only reported.</p>
+ */
+public final class AllocationBudgets {
+  private static final int WARMUP_CALLS = 20_000;
+  private static final int MEASURED_CALLS = 10_000;
+  private static final int ROUNDS = 5;
+  // Headroom given to measured values when updating budgets
+  private static final double UPDATE_HEADROOM = 1.1;
+  private static final int UPDATE_GRANULARITY = 16;
+
+  private AllocationBudgets() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    final Path budgetsFile = Path.of(args[0]);
+    final boolean update = args.length > 1 && args[1].equals("--update");
+    final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    final Properties budgets = new Properties();
+    try (Reader reader = Files.newBufferedReader(budgetsFile)) {
+      budgets.load(reader);
+    }
+
+    final Map<String, Long> measured = new TreeMap<>();
+    final List<String> failures = new ArrayList<>();
+    try (Terminal terminal = nullTerminal()) {
+      for (final Map.Entry<String, Runnable> path : paths(terminal).entrySet()) {
+        final long bytesPerCall = measure(threads, path.getValue());
+        measured.put(path.getKey(), bytesPerCall);
+        final String budget = budgets.getProperty(path.getKey());
+        if (budget == null) {
+          failures.add(path.getKey() + ": no budget");
+          System.out.printf(Locale.ROOT, "%-28s %8d B/call%n", path.getKey(), bytesPerCall);
+        } else if (budget.isBlank()) {
+          System.out.printf(Locale.ROOT, "%-28s %8d B/call (not measured yet)%n", path.getKey(), bytesPerCall);
+        } else {
+          System.out.printf(Locale.ROOT, "%-28s %8d B/call (budget %s)%n", path.getKey(), bytesPerCall, budget);
+          if (bytesPerCall > Long.parseLong(budget.trim())) {
+            failures.add(path.getKey() + ": " + bytesPerCall + " B/call exceeds budget of " + budget.trim());
+          }
+        }
+      }
+    }
+
+    if (update) {
+      try (Writer writer = Files.newBufferedWriter(budgetsFile, StandardCharsets.ISO_8859_1)) {
+        writer.write("# Bytes allocated per call, checked by the checkAllocationBudgets task. Empty budgets are not measured yet.\n");
+        writer.write("# Regenerate with ./gradlew checkAllocationBudgets -PupdateAllocationBudgets\n");
+        for (final Map.Entry<String, Long> entry : measured.entrySet()) {
+          writer.write(entry.getKey() + "=" + withHeadroom(entry.getValue()) + "\n");
+        }
+      }
+      System.out.println("Updated " + budgetsFile);
+      return;
+    }
+    if (!failures.isEmpty()) {
+      System.err.println("Allocation budgets exceeded:");
+      failures.forEach(failure -> System.err.println("  " + failure));
+      System.exit(1);
+    }
+  }
+
+  private static long withHeadroom(final long bytesPerCall) {
+    if (bytesPerCall == 0) {
+      return 0;
+    }
+    final long padded = (long) Math.ceil(bytesPerCall * UPDATE_HEADROOM);
+    return (padded + UPDATE_GRANULARITY - 1) / UPDATE_GRANULARITY * UPDATE_GRANULARITY;
+  }
+
+  private static long measure(final ThreadMXBean threads, final Runnable path) {
+    final long thread = Thread.currentThread().threadId();
+    for (int i = 0; i < WARMUP_CALLS; i++) {
+      path.run();
+    }
+    long lowest = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      final long before = threads.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < MEASURED_CALLS; i++) {
+        path.run();
+      }
+      final long after = threads.getThreadAllocatedBytes(thread);
+      lowest = Math.min(lowest, (after - before) / MEASURED_CALLS);
+    }
+    return lowest;
+  }
+
+  private static Terminal nullTerminal() throws IOException {
+    return TerminalBuilder.builder()
+      .system(false)
+      .streams(InputStream.nullInputStream(), OutputStream.nullOutputStream())
+      .type(Terminal.TYPE_DUMB)
+      .encoding(StandardCharsets.UTF_8)
+      .build();
+  }
+
+  private static Map<String, Runnable> paths(final Terminal terminal) {
+    final Map<String, Runnable> paths = new LinkedHashMap<>();
+    final Config config = new Config();
+
+    final HexFormattingConverter converter = HexFormattingConverter.newInstance(new DefaultConfiguration(), new String[]{"%msg"});
+    final PatternLayout layout = PatternLayout.newBuilder().withPattern(config.logPattern()).build();
+    final LineReader appenderReader = LineReaderBuilder.builder().terminal(terminal).build();
+    final ConsoleAppender appender = new ConsoleAppender(appenderReader, config.logPattern(), null, 0, null, null, new RecentLines(1024));
+    appender.start();
+    for (final LogEvents.Message message : LogEvents.Message.values()) {
+      final LogEvent event = LogEvents.event(message.text());
+      final String name = message.name().toLowerCase(Locale.ROOT);
+      final StringBuilder buffer = new StringBuilder(256);
+      paths.put("formatter.hex." + name, () -> {
+        buffer.setLength(0);
+        converter.format(event, buffer);
+      });
+      paths.put("formatter.layout." + name, () -> layout.toSerializable(event));
+      paths.put("appender." + name, () -> appender.append(event));
+    }
+
+    final SyntheticCommands commands = new SyntheticCommands(500, 1000);
+    final String line = commands.executeChain(4) + "mod1:";
+    final LineReader reader = LineReaderBuilder.builder().terminal(terminal).build();
+    reader.getBuffer().write(line);
+    final MinecraftCommandHighlighter<Object> highlighter = new MinecraftCommandHighlighter<>(commands, config);
+    // Same buffer as the last call, i.e. a redraw after log output
+    paths.put("highlighter.redraw", () -> highlighter.highlight(reader, line));
+    final String[] prefixes = {line, line + "i"};
+    final int[] keystroke = {0};
+    // Alternates between two buffers, so every call re-highlights
+    paths.put("highlighter.keystroke", () -> highlighter.highlight(reader, prefixes[keystroke[0]++ & 1]));
+
+    final MinecraftCommandCompleter<Object> completer = new MinecraftCommandCompleter<>(commands, null);
+    final ParsedLine parsedLine = new MinecraftConsoleParser<>(commands).parse(line, line.length(), Parser.ParseContext.COMPLETE);
+    final List<Candidate> candidates = new ArrayList<>();
+    paths.put("completer.registry", () -> {
+      candidates.clear();
+      completer.complete(reader, parsedLine, candidates);
+    });
+    return paths;
+  }
+}
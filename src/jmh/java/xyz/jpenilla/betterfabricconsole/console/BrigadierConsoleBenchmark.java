@@ -0,0 +1,135 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jline.reader.Candidate;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.reader.ParsedLine;
+import org.jline.reader.Parser;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.jline.utils.AttributedString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+
+/**
+ * Per-keystroke cost of parsing, highlighting and completing against a {@link SyntheticCommands} tree.
+ *
+ * <p>{@code modifiers} controls the length of the {@code execute} chain (and so the line length and
+ * redirect depth), {@code registrySize} the number of candidates the final argument suggests from.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrigadierConsoleBenchmark {
+  @Param({"5000"})
+  public int literals;
+
+  @Param({"1", "8", "32"})
+  public int modifiers;
+
+  @Param({"100", "10000"})
+  public int registrySize;
+
+  private Terminal terminal;
+  private LineReader lineReader;
+  private MinecraftConsoleParser<Object> parser;
+  private MinecraftCommandHighlighter<Object> highlighter;
+  private MinecraftCommandCompleter<Object> completer;
+  private String line;
+  private ParsedLine parsedLine;
+  private int keystroke;
+
+  @Setup
+  public void setup() throws IOException {
+    final SyntheticCommands commands = new SyntheticCommands(this.literals, this.registrySize);
+    this.terminal = TerminalBuilder.builder()
+      .system(false)
+      .streams(InputStream.nullInputStream(), OutputStream.nullOutputStream())
+      .type(Terminal.TYPE_DUMB)
+      .encoding(StandardCharsets.UTF_8)
+      .build();
+    this.lineReader = LineReaderBuilder.builder().terminal(this.terminal).build();
+    this.parser = new MinecraftConsoleParser<>(commands);
+    this.highlighter = new MinecraftCommandHighlighter<>(commands, new Config());
+    this.completer = new MinecraftCommandCompleter<>(commands, null);
+    this.line = commands.executeChain(this.modifiers) + "mod1:";
+    this.parsedLine = this.parser.parse(this.line, this.line.length(), Parser.ParseContext.COMPLETE);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.terminal.close();
+  }
+
+  @Benchmark
+  public ParsedLine parse() {
+    return this.parser.parse(this.line, this.line.length(), Parser.ParseContext.COMPLETE);
+  }
+
+  /**
+   * Highlights the line as it is typed, one character per invocation, starting over at the end.
+   *
+   * @return highlighted prefix
+   */
+  @Benchmark
+  public AttributedString highlightKeystroke() {
+    if (this.keystroke == this.line.length()) {
+      this.keystroke = 0;
+      this.lineReader.getBuffer().clear();
+    }
+    this.lineReader.getBuffer().write(this.line.charAt(this.keystroke++));
+    return this.highlighter.highlight(this.lineReader, this.lineReader.getBuffer().toString());
+  }
+
+  @Benchmark
+  public void complete(final Blackhole blackhole) {
+    final List<Candidate> candidates = new ArrayList<>();
+    this.completer.complete(this.lineReader, this.parsedLine, candidates);
+    blackhole.consume(candidates);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.core.LogEvent;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+
+/**
+ * {@link ConsoleAppender#append} against a JLine terminal writing to a null stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsoleAppenderBenchmark {
+  @Param
+  public LogEvents.Message message;
+
+  @Param({Terminal.TYPE_DUMB, "xterm-256color"})
+  public String terminalType;
+
+  private Terminal terminal;
+  private ConsoleAppender appender;
+  private LogEvent event;
+
+  @Setup
+  public void setup() throws IOException {
+    this.terminal = TerminalBuilder.builder()
+      .system(false)
+      .streams(InputStream.nullInputStream(), OutputStream.nullOutputStream())
+      .type(this.terminalType)
+      .encoding(StandardCharsets.UTF_8)
+      .build();
+    final LineReader lineReader = LineReaderBuilder.builder().terminal(this.terminal).build();
+    this.appender = new ConsoleAppender(lineReader, new Config().logPattern(), null, 0, null, null, new RecentLines(1024));
+    this.appender.start();
+    this.event = LogEvents.event(this.message.text());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.appender.stop();
+    this.terminal.close();
+  }
+
+  @Benchmark
+  public void append() {
+    this.appender.append(this.event);
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.jline.reader.EndOfFileException;
+import org.jline.reader.LineReader;
+import org.jline.reader.UserInterruptException;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+import xyz.jpenilla.betterfabricconsole.metrics.LatencyHistogram;
+
+/**
+ * End-to-end log flood through {@link ConsoleSetup#init} while a user types at the prompt.
+ *
+ * <p>The console runs on an external terminal reading from an in-memory pipe. A reader thread sits in
+ * {@link LineReader#readLine} like the console thread does, and a typist thread writes a command into the
+ * pipe one key at a time, so every log line has to clear and redraw a highlighted prompt. Producer threads
+ * (four by default, change with {@code -t}) log through Log4j.</p>
+ *
+ * <p>Throughput and sample time are what the producers (i.e. the server thread) see, and
+ * {@code gc.alloc.rate.norm} is allocation per event. With {@link OutputMode#ASYNC} producers only pay
+ * for the enqueue, so the console side is printed from {@link ConsoleMetrics} at the end of each trial.
+ * Run only this benchmark with {@code ./gradlew jmh -PjmhIncludes=ConsoleFloodBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ConsoleFloodBenchmark {
+  private static final String TYPED_COMMAND = "execute as player0 at player1 run give player mod1:item_1a 64";
+
+  @Param
+  public OutputMode mode;
+
+  @Param
+  public LogEvents.Message message;
+
+  @Param({"50"})
+  public int keystrokeIntervalMillis;
+
+  private PipedOutputStream keyboard;
+  private Terminal terminal;
+  private Thread reader;
+  private Thread typist;
+  private Logger logger;
+
+  @Setup
+  public void setup() throws IOException {
+    final PipedInputStream input = new PipedInputStream(4096);
+    this.keyboard = new PipedOutputStream(input);
+    this.terminal = TerminalBuilder.builder()
+      .system(false)
+      .streams(input, OutputStream.nullOutputStream())
+      .type("xterm-256color")
+      .size(new Size(120, 40))
+      .encoding(StandardCharsets.UTF_8)
+      .build();
+
+    final Config config = new Config();
+    final ConsoleState state = ConsoleSetup.init(config, this.terminal);
+    final SyntheticCommands commands = new SyntheticCommands(500, 1000);
+    state.highlighter().delegateTo(new MinecraftCommandHighlighter<>(commands, config));
+    state.parser().delegateTo(new MinecraftConsoleParser<>(commands));
+    state.completer().delegateTo(new MinecraftCommandCompleter<>(commands, null));
+    this.routeRootLogger();
+
+    final LineReader lineReader = state.lineReader();
+    this.reader = new Thread(() -> {
+      while (true) {
+        try {
+          lineReader.readLine("> ");
+        } catch (final EndOfFileException | UserInterruptException ex) {
+          return;
+        }
+      }
+    }, "Console thread");
+    this.typist = new Thread(this::type, "Typist");
+    this.reader.setDaemon(true);
+    this.typist.setDaemon(true);
+    this.reader.start();
+    this.typist.start();
+
+    this.logger = LogManager.getLogger("net.minecraft.server.MinecraftServer");
+    ConsoleMetrics.reset();
+  }
+
+  /**
+   * Sends root logger output only to the console appender, directly or through an {@link AsyncAppender}.
+   */
+  private void routeRootLogger() {
+    final LoggerContext context = (LoggerContext) LogManager.getContext(false);
+    final Configuration configuration = context.getConfiguration();
+    final LoggerConfig root = configuration.getRootLogger();
+    final Appender console = root.getAppenders().get("Console");
+    for (final String name : List.copyOf(root.getAppenders().keySet())) {
+      root.removeAppender(name);
+    }
+
+    if (this.mode == OutputMode.ASYNC) {
+      configuration.addAppender(console);
+      final AsyncAppender async = AsyncAppender.newBuilder()
+        .setName("AsyncConsole")
+        .setAppenderRefs(new AppenderRef[]{AppenderRef.createAppenderRef(console.getName(), null, null)})
+        .setConfiguration(configuration)
+        .setBlocking(true)
+        .setBufferSize(1024)
+        .build();
+      async.start();
+      root.addAppender(async, Level.INFO, null);
+    } else {
+      root.addAppender(console, Level.INFO, null);
+    }
+    root.setLevel(Level.INFO);
+    context.updateLoggers();
+  }
+
+  private void type() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        for (int i = 0; i < TYPED_COMMAND.length(); i++) {
+          this.keyboard.write(TYPED_COMMAND.charAt(i));
+          this.keyboard.flush();
+          Thread.sleep(this.keystrokeIntervalMillis);
+        }
+        this.keyboard.write('\r');
+        this.keyboard.flush();
+      }
+    } catch (final IOException | InterruptedException ignored) {
+      // Torn down
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException, InterruptedException {
+    this.typist.interrupt();
+    this.typist.join();
+    this.keyboard.close();
+    this.reader.join(TimeUnit.SECONDS.toMillis(5));
+    LogManager.shutdown();
+    this.terminal.close();
+
+    final LatencyHistogram.Snapshot append = ConsoleMetrics.append().snapshot();
+    System.out.printf(
+      "%nConsole side: %d events, %d redraws, append p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+      ConsoleMetrics.appendedEvents().sum(),
+      ConsoleMetrics.redraws().sum(),
+      append.valueAtPercentile(50) / 1000.0,
+      append.valueAtPercentile(99) / 1000.0,
+      append.valueAtPercentile(99.9) / 1000.0,
+      append.max() / 1000.0
+    );
+  }
+
+  /**
+   * Logs a distinct line, so results stay comparable when repeated message collapsing is configured.
+   *
+   * @param producer producer state
+   */
+  @Benchmark
+  public void log(final Producer producer) {
+    this.logger.info("{} #{}", this.message.text(), producer.sequence++);
+  }
+
+  @State(Scope.Thread)
+  public static class Producer {
+    long sequence;
+  }
+
+  public enum OutputMode {
+    /**
+     * Producers run the console appender themselves, like the server does today.
+     */
+    SYNC,
+    /**
+     * Producers hand events to a Log4j {@link AsyncAppender} in front of the console appender.
+     */
+    ASYNC
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Fixed log messages shared by the output pipeline benchmarks.
+ */
+@NullMarked
+public final class LogEvents {
+  private LogEvents() {
+  }
+
+  public static LogEvent event(final String message) {
+    return Log4jLogEvent.newBuilder()
+      .setLoggerName("net.minecraft.server.MinecraftServer")
+      .setLevel(Level.INFO)
+      .setThreadName("Server thread")
+      .setTimeMillis(1_700_000_000_000L)
+      .setMessage(new SimpleMessage(message))
+      .build()
+      .toImmutable();
+  }
+
+  public enum Message {
+    PLAIN("Preparing spawn area: 83% [world/level.dat] Loaded 1024 advancements and 7 recipes in 12ms"),
+    NAMED("§6[Essentials] §aPlayer §bjmp §ajoined the game. §7(§f12§7/§f100§7) §l§nWelcome back!§r Have fun."),
+    RGB("§#ff79c6Better §#bd93f9Fabric §#8be9fdConsole §#50fa7bwith §#f1fa8clots §#ffb86cof §#ff5555hex §#6272a4colors §ftoday");
+
+    private final String text;
+
+    Message(final String text) {
+      this.text = text;
+    }
+
+    public String text() {
+      return this.text;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import java.util.Locale;
+
+import static com.mojang.brigadier.builder.LiteralArgumentBuilder.literal;
+import static com.mojang.brigadier.builder.RequiredArgumentBuilder.argument;
+
+/**
+ * A command tree shaped like a large modded server's, without needing a server.
+ *
+ * <p>It has thousands of root literals, an {@code execute} command whose modifiers redirect back into
+ * itself and whose {@code run} redirects to the root, and a {@code give}-like command suggesting from a
+ * registry sized like a large modpack's.</p>
+ */
+final class SyntheticCommands implements ConsoleCommands<Object> {
+  private static final Object SOURCE = new Object();
+
+  private final CommandDispatcher<Object> dispatcher = new CommandDispatcher<>();
+  private final String[] registry;
+
+  SyntheticCommands(final int literals, final int registrySize) {
+    this.registry = new String[registrySize];
+    for (int i = 0; i < registrySize; i++) {
+      this.registry[i] = "mod" + (i % 64) + ":item_" + Integer.toString(i, 36).toLowerCase(Locale.ROOT);
+    }
+
+    for (int i = 0; i < literals; i++) {
+      this.dispatcher.register(literal("command" + i)
+        .then(literal("set").then(argument("value", IntegerArgumentType.integer()).executes(ctx -> 1)))
+        .then(literal("get").executes(ctx -> 1)));
+    }
+
+    final SuggestionProvider<Object> registrySuggestions = (ctx, builder) -> {
+      final String remaining = builder.getRemainingLowerCase();
+      for (final String id : this.registry) {
+        if (id.startsWith(remaining)) {
+          builder.suggest(id);
+        }
+      }
+      return builder.buildFuture();
+    };
+    this.dispatcher.register(literal("give")
+      .then(argument("target", StringArgumentType.word())
+        .then(argument("item", StringArgumentType.word()).suggests(registrySuggestions)
+          .executes(ctx -> 1)
+          .then(argument("count", IntegerArgumentType.integer(1)).executes(ctx -> 1)))));
+    this.dispatcher.register(literal("say")
+      .then(argument("message", StringArgumentType.greedyString()).executes(ctx -> 1)));
+
+    final LiteralCommandNode<Object> execute = this.dispatcher.register(literal("execute"));
+    this.dispatcher.register(literal("execute")
+      .then(literal("as").then(argument("targets", StringArgumentType.word()).redirect(execute)))
+      .then(literal("at").then(argument("targets", StringArgumentType.word()).redirect(execute)))
+      .then(literal("if").then(literal("score")
+        .then(argument("target", StringArgumentType.word())
+          .then(argument("value", IntegerArgumentType.integer()).redirect(execute)))))
+      .then(literal("run").redirect(this.dispatcher.getRoot())));
+  }
+
+  /**
+   * Builds an {@code execute} chain with the given number of modifiers, ending in a {@code give}.
+   *
+   * @param modifiers number of modifiers
+   * @return command line
+   */
+  String executeChain(final int modifiers) {
+    final StringBuilder builder = new StringBuilder("execute");
+    for (int i = 0; i < modifiers; i++) {
+      switch (i % 3) {
+        case 0 -> builder.append(" as player").append(i);
+        case 1 -> builder.append(" at player").append(i);
+        default -> builder.append(" if score player").append(i).append(' ').append(i);
+      }
+    }
+    return builder.append(" run give player ").toString();
+  }
+
+  @Override
+  public CommandDispatcher<Object> dispatcher() {
+    return this.dispatcher;
+  }
+
+  @Override
+  public Object source() {
+    return SOURCE;
+  }
+}
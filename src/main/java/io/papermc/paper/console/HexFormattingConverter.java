@@ -39,6 +39,7 @@ import org.apache.logging.log4j.core.pattern.PatternFormatter;
 import org.apache.logging.log4j.core.pattern.PatternParser;
 import org.apache.logging.log4j.util.PerformanceSensitive;
 import org.apache.logging.log4j.util.PropertiesUtil;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.HexFormattingEvent;
 
 /**
  * Modified version of Paper's HexFormattingConverter to work with Kyori '§#rrggbb' format
@@ -129,6 +130,8 @@ public final class HexFormattingConverter extends LogEventPatternConverter {
 
     @Override
     public void format(LogEvent event, StringBuilder toAppendTo) {
+        HexFormattingEvent formattingEvent = new HexFormattingEvent();
+        formattingEvent.begin();
         int start = toAppendTo.length();
         //noinspection ForLoopReplaceableByForEach
         for (int i = 0, size = formatters.size(); i < size; i++) {
@@ -142,8 +145,17 @@ public final class HexFormattingConverter extends LogEventPatternConverter {
 
         boolean useAnsi = ansi && ColorLevel.compute() != ColorLevel.NONE;
         String content = toAppendTo.substring(start);
+        int messageLength = content.length();
         content = useAnsi ? convertRGBColors(content) : stripRGBColors(content);
         format(content, toAppendTo, start, useAnsi);
+
+        formattingEvent.end();
+        if (formattingEvent.shouldCommit()) {
+            formattingEvent.loggerName = event.getLoggerName();
+            formattingEvent.messageLength = messageLength;
+            formattingEvent.outputLength = toAppendTo.length() - start;
+            formattingEvent.commit();
+        }
     }
 
     private static String convertRGBColors(final String input) {
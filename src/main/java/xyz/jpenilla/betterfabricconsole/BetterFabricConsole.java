@@ -27,9 +27,15 @@ import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.logging.LogUtils;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.loader.api.FabricLoader;
 import net.kyori.adventure.platform.modcommon.MinecraftServerAudiences;
 import net.kyori.adventure.text.format.TextColor;
 import net.minecraft.DefaultUncaughtExceptionHandler;
@@ -41,12 +47,23 @@ import net.minecraft.server.permissions.Permission;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.audit.CommandAuditLog;
+import xyz.jpenilla.betterfabricconsole.command.AuditCommand;
+import xyz.jpenilla.betterfabricconsole.command.FilterCommand;
+import xyz.jpenilla.betterfabricconsole.command.ProfileCommand;
+import xyz.jpenilla.betterfabricconsole.command.ReloadCommand;
+import xyz.jpenilla.betterfabricconsole.command.StatsCommand;
+import xyz.jpenilla.betterfabricconsole.command.TailCommand;
 import xyz.jpenilla.betterfabricconsole.configuration.Config;
+import xyz.jpenilla.betterfabricconsole.configuration.ConfigWatcher;
+import xyz.jpenilla.betterfabricconsole.console.ConsoleCommands;
 import xyz.jpenilla.betterfabricconsole.console.ConsoleState;
 import xyz.jpenilla.betterfabricconsole.console.ConsoleThread;
 import xyz.jpenilla.betterfabricconsole.console.MinecraftCommandCompleter;
 import xyz.jpenilla.betterfabricconsole.console.MinecraftCommandHighlighter;
 import xyz.jpenilla.betterfabricconsole.console.MinecraftConsoleParser;
+import xyz.jpenilla.betterfabricconsole.console.StatusBar;
+import xyz.jpenilla.betterfabricconsole.metrics.MemoryWatchdog;
 
 import static net.kyori.adventure.text.Component.text;
 import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
@@ -61,22 +78,85 @@ public final class BetterFabricConsole implements ModInitializer {
   private static final TextColor PINK = color(0xFF79C6);
   private static @Nullable BetterFabricConsole INSTANCE;
 
+  private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(task -> {
+    final Thread thread = new Thread(task, "Config reload");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile @Nullable CommandAuditLog commandAudit;
+  private volatile @Nullable ConsoleCommands<CommandSourceStack> consoleCommands;
+
   @Override
   public void onInitialize() {
     INSTANCE = this;
     CommandRegistrationCallback.EVENT.register(this::registerCommands);
     ServerLifecycleEvents.SERVER_STARTING.register(server -> this.initConsoleThread((DedicatedServer) server));
+    ServerLifecycleEvents.SERVER_STARTING.register(server -> this.commandAudit = new CommandAuditLog(
+      this.config().commandAudit(),
+      this.config().logPlayerExecutedCommands(),
+      FabricLoader.getInstance().getGameDir().resolve("logs").resolve("command-audit")
+    ));
+    ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+      final @Nullable CommandAuditLog commandAudit = this.commandAudit;
+      if (commandAudit != null) {
+        this.commandAudit = null;
+        commandAudit.close();
+      }
+    });
   }
 
   private void initConsoleThread(final DedicatedServer server) {
     final ConsoleState consoleState = BetterFabricConsolePreLaunch.instance().consoleState();
-    consoleState.completer().delegateTo(new MinecraftCommandCompleter(server, MinecraftServerAudiences.of(server)));
-    consoleState.highlighter().delegateTo(new MinecraftCommandHighlighter(server, this.config().highlightColors()));
-    consoleState.parser().delegateTo(new MinecraftConsoleParser(server));
+    final ConsoleCommands<CommandSourceStack> commands = ConsoleCommands.of(server);
     final ConsoleThread consoleThread = new ConsoleThread(server, consoleState.lineReader());
     consoleThread.setDaemon(true);
     consoleThread.setUncaughtExceptionHandler(new DefaultUncaughtExceptionHandler(LOGGER));
-    consoleThread.start();
+    // Off the server thread, and after the history is loaded so the first prompt has it
+    consoleState.background().execute(() -> {
+      try {
+        consoleState.completer().delegateTo(new MinecraftCommandCompleter<>(commands, MinecraftServerAudiences.of(server)));
+        consoleState.highlighter().delegateTo(new MinecraftCommandHighlighter<>(commands, this.config()));
+        consoleState.parser().delegateTo(new MinecraftConsoleParser<>(commands));
+      } catch (final RuntimeException | LinkageError ex) {
+        LOGGER.error("Failed to set up console completion and highlighting, continuing without them", ex);
+      } finally {
+        // Accept input even without the delegates
+        consoleThread.start();
+      }
+    });
+    if (this.config().statusBarRefreshMillis() > 0) {
+      StatusBar.start(server, consoleState.lineReader(), this.config().statusBarRefreshMillis());
+    }
+    MemoryWatchdog.start(this.config().memoryWatchdog());
+    this.consoleCommands = commands;
+    if (this.config().reloadOnChange()) {
+      ConfigWatcher.start(BetterFabricConsolePreLaunch.instance().configFile(), () -> this.reloadConfig().exceptionally(ex -> {
+        LOGGER.warn("Failed to reload config, keeping the current one", ex);
+        return null;
+      }));
+    }
+  }
+
+  /**
+   * Reloads the config file off-thread and applies the console output settings and highlight colors.
+   *
+   * @return future completed with the reloaded config, or exceptionally if it couldn't be read
+   */
+  public CompletableFuture<Config> reloadConfig() {
+    return CompletableFuture.supplyAsync(() -> {
+      final Config config;
+      try {
+        config = BetterFabricConsolePreLaunch.instance().reloadConfig();
+      } catch (final IOException ex) {
+        throw new CompletionException(ex);
+      }
+      final @Nullable ConsoleCommands<CommandSourceStack> commands = this.consoleCommands;
+      if (commands != null) {
+        BetterFabricConsolePreLaunch.instance().consoleState().highlighter().delegateTo(new MinecraftCommandHighlighter<>(commands, config));
+      }
+      LOGGER.info("Reloaded config");
+      return config;
+    }, this.reloadExecutor);
   }
 
   private void registerCommands(
@@ -94,7 +174,13 @@ public final class BetterFabricConsole implements ModInitializer {
         return stack.permissions().hasPermission(
           new Permission.HasCommandLevel(server.operatorUserPermissions().level()));
       })
-      .executes(this::executeCommand));
+      .executes(this::executeCommand)
+      .then(StatsCommand.create())
+      .then(FilterCommand.create())
+      .then(TailCommand.create())
+      .then(ProfileCommand.create())
+      .then(AuditCommand.create())
+      .then(ReloadCommand.create()));
   }
 
   private int executeCommand(final CommandContext<CommandSourceStack> ctx) {
@@ -106,6 +192,10 @@ public final class BetterFabricConsole implements ModInitializer {
     return Command.SINGLE_SUCCESS;
   }
 
+  public @Nullable CommandAuditLog commandAudit() {
+    return this.commandAudit;
+  }
+
   public Config config() {
     return BetterFabricConsolePreLaunch.instance().config();
   }
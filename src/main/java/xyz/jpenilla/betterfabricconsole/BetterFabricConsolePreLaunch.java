@@ -25,7 +25,9 @@ package xyz.jpenilla.betterfabricconsole;
 
 import com.mojang.logging.LogUtils;
 import io.papermc.paper.console.HexFormattingConverter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -36,6 +38,7 @@ import net.fabricmc.loader.api.ModContainer;
 import net.fabricmc.loader.api.entrypoint.PreLaunchEntrypoint;
 import org.apache.logging.log4j.core.config.plugins.util.PluginRegistry;
 import org.apache.logging.log4j.core.config.plugins.util.PluginType;
+import org.jline.terminal.Terminal;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
@@ -44,6 +47,8 @@ import org.spongepowered.configurate.hocon.HoconConfigurationLoader;
 import xyz.jpenilla.betterfabricconsole.configuration.Config;
 import xyz.jpenilla.betterfabricconsole.console.ConsoleSetup;
 import xyz.jpenilla.betterfabricconsole.console.ConsoleState;
+import xyz.jpenilla.betterfabricconsole.util.PhaseTimer;
+import xyz.jpenilla.betterfabricconsole.util.TerminalModeDetection;
 
 import static java.util.Objects.requireNonNull;
 
@@ -53,27 +58,39 @@ public final class BetterFabricConsolePreLaunch implements PreLaunchEntrypoint {
   private static @Nullable BetterFabricConsolePreLaunch INSTANCE;
 
   private @Nullable ModContainer modContainer;
-  private @Nullable Config config;
+  private volatile @Nullable Config config;
   private @Nullable ConsoleState consoleState;
 
   @Override
   public void onPreLaunch() {
+    final PhaseTimer timer = new PhaseTimer();
     try {
       loadPluginsFromClassLoader(HexFormattingConverter.class.getClassLoader());
     } catch (final ReflectiveOperationException e) {
       LOGGER.error("Failed to load extra Log4j2 plugins", e);
     }
+    timer.mark("log4j plugins");
 
     this.modContainer = FabricLoader.getInstance().getModContainer("better-fabric-console")
       .orElseThrow(() -> new IllegalStateException("Could not find mod container for better-fabric-console"));
     this.loadModConfig();
+    timer.mark("config");
     INSTANCE = this;
-    this.initConsole();
+    this.initConsole(timer);
+    LOGGER.info("Initialized Better Fabric Console in {}", timer.summary());
+  }
+
+  /**
+   * Gets the config file's location.
+   *
+   * @return config file
+   */
+  public Path configFile() {
+    return FabricLoader.getInstance().getConfigDir().resolve(this.modContainer().getMetadata().getId() + ".conf");
   }
 
   private void loadModConfig() {
-    final Path configFile = FabricLoader.getInstance().getConfigDir()
-      .resolve(this.modContainer().getMetadata().getId() + ".conf");
+    final Path configFile = this.configFile();
     final HoconConfigurationLoader loader = HoconConfigurationLoader.builder()
       .path(configFile)
       .build();
@@ -83,17 +100,44 @@ public final class BetterFabricConsolePreLaunch implements PreLaunchEntrypoint {
       }
       final CommentedConfigurationNode load = loader.load();
       this.config = load.get(Config.class);
-      loader.save(loader.createNode(node -> node.set(this.config)));
+      final CommentedConfigurationNode node = loader.createNode(n -> n.set(this.config));
+      // Only write when something changed, i.e. new options, so the file is left alone on most boots
+      final StringWriter rendered = new StringWriter();
+      HoconConfigurationLoader.builder().sink(() -> new BufferedWriter(rendered)).build().save(node);
+      if (!Files.isRegularFile(configFile) || !rendered.toString().equals(Files.readString(configFile))) {
+        loader.save(node);
+      }
     } catch (final IOException ex) {
       throw new RuntimeException("Failed to load config", ex);
     }
   }
 
+  /**
+   * Reads the config file again and applies the console output settings. The file is not rewritten,
+   * so it doesn't trigger its own watcher.
+   *
+   * @return reloaded config
+   * @throws IOException if the file can't be read, the current config is kept
+   */
+  public Config reloadConfig() throws IOException {
+    final HoconConfigurationLoader loader = HoconConfigurationLoader.builder()
+      .path(this.configFile())
+      .build();
+    final @Nullable Config config = loader.load().get(Config.class);
+    if (config == null) {
+      throw new IOException("Config file is empty");
+    }
+    this.consoleState().reconfigure(config);
+    this.config = config;
+    return config;
+  }
+
   public Config config() {
-    if (this.config == null) {
+    final @Nullable Config config = this.config;
+    if (config == null) {
       throw new IllegalStateException("Config not loaded!");
     }
-    return this.config;
+    return config;
   }
 
   public ModContainer modContainer() {
@@ -104,9 +148,12 @@ public final class BetterFabricConsolePreLaunch implements PreLaunchEntrypoint {
     return requireNonNull(this.consoleState);
   }
 
-  private void initConsole() {
+  private void initConsole(final PhaseTimer timer) {
     LOGGER.info("Initializing Better Fabric Console...");
-    this.consoleState = ConsoleSetup.init(this.config());
+    // Reuse the terminal built to detect the terminal mode
+    final @Nullable Terminal terminal = TerminalModeDetection.isInteractive() ? TerminalModeDetection.takeTerminal() : null;
+    timer.mark("terminal");
+    this.consoleState = ConsoleSetup.init(this.config(), terminal, timer);
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,180 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.audit;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Reads records from an audit file in order, tracking the uncompressed offset of each record.
+ *
+ * <p>Files of the previous version, with modified UTF-8 strings, are still read. A file that ends before its
+ * header is complete, like one opened just before a crash, reads as empty.</p>
+ */
+@NullMarked
+final class AuditFileReader implements AutoCloseable {
+  private final Path file;
+  private final CountingInputStream counter;
+  private final DataInputStream in;
+  private final boolean legacyStrings;
+  private final boolean empty;
+
+  AuditFileReader(final Path file) throws IOException {
+    this.file = file;
+    final InputStream raw = Files.newInputStream(file);
+    InputStream stream = raw;
+    if (file.getFileName().toString().endsWith(".gz")) {
+      try {
+        stream = new GZIPInputStream(raw);
+      } catch (final EOFException ex) {
+        // Not even the gzip header was flushed
+        raw.close();
+        stream = InputStream.nullInputStream();
+      }
+    }
+    this.counter = new CountingInputStream(new BufferedInputStream(stream));
+    this.in = new DataInputStream(this.counter);
+    int version = -1;
+    try {
+      if (this.in.readInt() != AuditFileWriter.MAGIC) {
+        throw new IOException("Not a command audit file: " + file);
+      }
+      version = this.in.readInt();
+    } catch (final EOFException ignored) {
+      // Ends before the header is complete, nothing was written yet
+    }
+    if (version != -1 && version != AuditFileWriter.VERSION && version != 1) {
+      throw new IOException("Unsupported command audit file version " + version + ": " + file);
+    }
+    this.legacyStrings = version == 1;
+    this.empty = version == -1;
+  }
+
+  /**
+   * Gets the offset of the next record.
+   *
+   * @return offset
+   */
+  long offset() {
+    return this.counter.count;
+  }
+
+  /**
+   * Skips forward to an offset from the index.
+   *
+   * @param offset offset of a record
+   * @throws IOException on read failure
+   */
+  void skipTo(final long offset) throws IOException {
+    if (this.empty) {
+      return;
+    }
+    if (offset < this.counter.count) {
+      throw new IOException("Offset " + offset + " is behind position " + this.counter.count + " in " + this.file);
+    }
+    this.in.skipNBytes(offset - this.counter.count);
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return record, or {@code null} at the end of the file, including the end of what was flushed so far
+   *     of a file still being written
+   * @throws IOException on read failure
+   */
+  @Nullable CommandAuditRecord next() throws IOException {
+    if (this.empty) {
+      return null;
+    }
+    try {
+      return new CommandAuditRecord(this.in.readLong(), new UUID(this.in.readLong(), this.in.readLong()), this.readString(), this.readString());
+    } catch (final EOFException ex) {
+      return null;
+    }
+  }
+
+  private String readString() throws IOException {
+    return this.legacyStrings ? this.in.readUTF() : readString(this.in);
+  }
+
+  private static String readString(final DataInput in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Negative string length " + length);
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+
+  private static final class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    CountingInputStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int read = super.read();
+      if (read != -1) {
+        this.count++;
+      }
+      return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read > 0) {
+        this.count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = super.skip(n);
+      this.count += skipped;
+      return skipped;
+    }
+  }
+}
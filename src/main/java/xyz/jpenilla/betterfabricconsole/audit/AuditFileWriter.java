@@ -0,0 +1,169 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Append-only binary audit files, rolled over daily and by size.
+ *
+ * <p>A file is a magic number and version followed by records of timestamp, UUID, player name and command,
+ * strings as an int byte length and UTF-8. Each record is encoded in full before any of it is written, and
+ * only then added to the index. Compressed files are sync flushed after every batch, so everything written
+ * survives a crash. When a file is closed its {@link SegmentIndex} is written next to it.</p>
+ */
+@NullMarked
+final class AuditFileWriter implements AutoCloseable {
+  static final int MAGIC = 0x42464341; // BFCA
+  static final int VERSION = 2;
+  static final Pattern FILE_NAME = Pattern.compile("commands-(\\d{4}-\\d{2}-\\d{2})-(\\d+)\\.bin(\\.gz)?");
+
+  private final Path directory;
+  private final boolean compress;
+  private final long maxFileBytes;
+  private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+  private final DataOutputStream recordOut = new DataOutputStream(this.recordBytes);
+  private @Nullable DataOutputStream out;
+  private volatile @Nullable Path file;
+  private SegmentIndex.Builder index = new SegmentIndex.Builder();
+  private @Nullable LocalDate date;
+  private int fileNumber;
+
+  AuditFileWriter(final Path directory, final boolean compress, final long maxFileBytes) {
+    this.directory = directory;
+    this.compress = compress;
+    this.maxFileBytes = maxFileBytes;
+  }
+
+  void write(final List<CommandAuditRecord> batch) throws IOException {
+    for (final CommandAuditRecord record : batch) {
+      this.recordBytes.reset();
+      this.recordOut.writeLong(record.timestamp());
+      this.recordOut.writeLong(record.player().getMostSignificantBits());
+      this.recordOut.writeLong(record.player().getLeastSignificantBits());
+      writeString(this.recordOut, record.playerName());
+      writeString(this.recordOut, record.command());
+      final DataOutputStream out = this.output(LocalDate.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneId.systemDefault()));
+      final int offset = out.size();
+      try {
+        this.recordBytes.writeTo(out);
+      } catch (final IOException ex) {
+        // The file may end in part of a record now, later ones go to a new file
+        try {
+          this.close();
+        } catch (final IOException closeEx) {
+          ex.addSuppressed(closeEx);
+        }
+        throw ex;
+      }
+      this.index.add(offset, record);
+    }
+    if (this.out != null) {
+      this.out.flush();
+    }
+  }
+
+  private static void writeString(final DataOutput out, final String string) throws IOException {
+    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private DataOutputStream output(final LocalDate date) throws IOException {
+    if (this.out != null && date.equals(this.date) && this.out.size() < this.maxFileBytes) {
+      return this.out;
+    }
+    this.close();
+    Files.createDirectories(this.directory);
+    this.fileNumber = date.equals(this.date) ? this.fileNumber + 1 : this.nextFileNumber(date);
+    this.date = date;
+    final Path file = this.directory.resolve("commands-" + date + "-" + this.fileNumber + (this.compress ? ".bin.gz" : ".bin"));
+    OutputStream stream = Files.newOutputStream(file);
+    if (this.compress) {
+      stream = new GZIPOutputStream(stream, true);
+    }
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    this.out = out;
+    this.file = file;
+    return out;
+  }
+
+  private int nextFileNumber(final LocalDate date) throws IOException {
+    int next = 1;
+    try (final Stream<Path> files = Files.list(this.directory)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        final Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        if (matcher.matches() && matcher.group(1).equals(date.toString())) {
+          next = Math.max(next, Integer.parseInt(matcher.group(2)) + 1);
+        }
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Gets the file being written, which has no index yet.
+   *
+   * @return current file
+   */
+  @Nullable Path currentFile() {
+    return this.file;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.out != null) {
+      final DataOutputStream out = this.out;
+      final SegmentIndex.Builder index = this.index;
+      final Path file = requireNonNull(this.file);
+      this.out = null;
+      this.index = new SegmentIndex.Builder();
+      out.close();
+      index.write(SegmentIndex.indexFile(file));
+      this.file = null;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.audit;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Searches the audit files by player name or root command, using their indexes.
+ *
+ * <p>Files are daily, so whole days before the search window are skipped by name, and files whose index
+ * has no matching key are skipped without opening them. Matching records are read by seeking to their
+ * offsets. Files without an index, the one being written or one left by a crash, are scanned, and the
+ * index of a finished file is written on the way so the next search can use it.</p>
+ */
+@NullMarked
+public final class AuditSearch {
+  private static final Logger LOGGER = LogUtils.getLogger();
+
+  private AuditSearch() {
+  }
+
+  /**
+   * Searches for commands by a player or with a root command, in chronological order.
+   *
+   * @param log     audit log
+   * @param term    player name, or root command with a leading {@code /}; player names also match root
+   *                commands of the same name
+   * @param since   minimum timestamp
+   * @param limit   maximum number of results
+   * @param results receives results as they are found
+   * @return number of results
+   * @throws IOException if the audit directory can't be listed, unreadable files are logged and skipped
+   */
+  public static int search(
+    final CommandAuditLog log,
+    final String term,
+    final long since,
+    final int limit,
+    final Consumer<CommandAuditRecord> results
+  ) throws IOException {
+    final Set<String> keys = term.startsWith("/")
+      ? Set.of(SegmentIndex.commandKey(term))
+      : Set.of(SegmentIndex.playerKey(term), SegmentIndex.commandKey(term));
+    final LocalDate sinceDate = LocalDate.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault());
+    final @Nullable Path current = log.currentFile();
+    int found = 0;
+    for (final Path file : files(log.directory(), sinceDate)) {
+      final Path indexFile = SegmentIndex.indexFile(file);
+      try {
+        if (!file.equals(current) && Files.isRegularFile(indexFile)) {
+          found += searchIndexed(file, SegmentIndex.lookup(indexFile, keys, since), since, limit - found, results);
+        } else {
+          found += scan(file, !file.equals(current), keys, since, limit - found, results);
+        }
+      } catch (final IOException ex) {
+        // One damaged file shouldn't hide the matches in all the others
+        LOGGER.warn("Skipping unreadable command audit file {}", file, ex);
+      }
+      if (found >= limit) {
+        break;
+      }
+    }
+    return found;
+  }
+
+  private static List<Path> files(final Path directory, final LocalDate since) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (final Stream<Path> files = Files.list(directory)) {
+      return files
+        .filter(file -> {
+          final Matcher matcher = AuditFileWriter.FILE_NAME.matcher(file.getFileName().toString());
+          return matcher.matches() && !LocalDate.parse(matcher.group(1)).isBefore(since);
+        })
+        .sorted(Comparator.comparing(AuditSearch::date).thenComparingInt(AuditSearch::number))
+        .toList();
+    }
+  }
+
+  private static LocalDate date(final Path file) {
+    final Matcher matcher = AuditFileWriter.FILE_NAME.matcher(file.getFileName().toString());
+    return matcher.matches() ? LocalDate.parse(matcher.group(1)) : LocalDate.MIN;
+  }
+
+  private static int number(final Path file) {
+    final Matcher matcher = AuditFileWriter.FILE_NAME.matcher(file.getFileName().toString());
+    return matcher.matches() ? Integer.parseInt(matcher.group(2)) : 0;
+  }
+
+  private static int searchIndexed(
+    final Path file,
+    final LongArrayList offsets,
+    final long since,
+    final int limit,
+    final Consumer<CommandAuditRecord> results
+  ) throws IOException {
+    if (offsets.isEmpty()) {
+      return 0;
+    }
+    int found = 0;
+    try (final AuditFileReader reader = new AuditFileReader(file)) {
+      for (int i = 0; i < offsets.size() && found < limit; i++) {
+        reader.skipTo(offsets.getLong(i));
+        final @Nullable CommandAuditRecord record = reader.next();
+        if (record == null) {
+          break;
+        }
+        if (record.timestamp() >= since) {
+          results.accept(record);
+          found++;
+        }
+      }
+    }
+    return found;
+  }
+
+  private static int scan(
+    final Path file,
+    final boolean writeIndex,
+    final Set<String> keys,
+    final long since,
+    final int limit,
+    final Consumer<CommandAuditRecord> results
+  ) throws IOException {
+    final SegmentIndex.@Nullable Builder index = writeIndex ? new SegmentIndex.Builder() : null;
+    int found = 0;
+    try (final AuditFileReader reader = new AuditFileReader(file)) {
+      long offset = reader.offset();
+      CommandAuditRecord record;
+      while ((record = reader.next()) != null) {
+        if (index != null) {
+          index.add(offset, record);
+        } else if (found >= limit) {
+          break;
+        }
+        offset = reader.offset();
+        if (found < limit && record.timestamp() >= since
+          && (keys.contains(SegmentIndex.playerKey(record.playerName())) || keys.contains(SegmentIndex.commandKey(record.command())))) {
+          results.accept(record);
+          found++;
+        }
+      }
+    }
+    if (index != null) {
+      try {
+        index.write(SegmentIndex.indexFile(file));
+      } catch (final IOException ex) {
+        LOGGER.warn("Failed to write command audit index for {}", file, ex);
+      }
+    }
+    return found;
+  }
+}
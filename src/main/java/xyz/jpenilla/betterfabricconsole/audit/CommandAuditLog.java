@@ -0,0 +1,228 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.audit;
+
+import com.mojang.logging.LogUtils;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.BetterFabricConsole;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+import xyz.jpenilla.betterfabricconsole.util.TokenBucket;
+
+/**
+ * Records commands executed by players without doing any file I/O on the calling thread.
+ *
+ * <p>Echoes are rate limited and logged on the calling thread, so they show up in order with the rest of the
+ * console output. Records go into a lock-free queue and are written in batches from a background thread to
+ * the audit files.</p>
+ */
+@NullMarked
+public final class CommandAuditLog {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+  private final ConcurrentLinkedQueue<CommandAuditRecord> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong notEchoed = new AtomicLong();
+  private final List<CommandAuditRecord> batch = new ArrayList<>();
+  private final int queueCapacity;
+  private final boolean echo;
+  private final CommandRules rules;
+  private final double perPlayerEchoRateLimit;
+  private final int perPlayerEchoBurst;
+  private final @Nullable TokenBucket echoLimiter;
+  private final @Nullable AuditFileWriter writer;
+  private final ScheduledExecutorService executor;
+  private final Path directory;
+
+  /**
+   * Creates and starts an audit log.
+   *
+   * @param config    audit config
+   * @param echo      whether to echo commands to the console
+   * @param directory directory for audit files
+   */
+  public CommandAuditLog(final Config.CommandAudit config, final boolean echo, final Path directory) {
+    this.directory = directory;
+    this.queueCapacity = config.queueCapacity();
+    this.echo = echo;
+    this.rules = CommandRules.compile(config.hiddenCommands(), config.alwaysShownCommands());
+    this.perPlayerEchoRateLimit = config.perPlayerEchoRateLimit();
+    this.perPlayerEchoBurst = Math.max(1, config.perPlayerEchoBurst());
+    this.echoLimiter = config.echoRateLimit() > 0 ? new TokenBucket(config.echoRateLimit(), Math.max(1, config.echoBurst())) : null;
+    this.writer = config.enabled() ? new AuditFileWriter(directory, config.compress(), Math.max(1, config.maxFileMegabytes()) * 1024L * 1024L) : null;
+    this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread thread = new Thread(task, "Command audit writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (this.writer != null) {
+      final long flushInterval = Math.max(1, config.flushIntervalMillis());
+      this.executor.scheduleWithFixedDelay(this::drain, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Whether commands are written or echoed at all.
+   *
+   * @return whether enabled
+   */
+  public boolean enabled() {
+    return this.writer != null || this.echo;
+  }
+
+  /**
+   * Gets the directory of the audit files.
+   *
+   * @return directory
+   */
+  public Path directory() {
+    return this.directory;
+  }
+
+  /**
+   * Gets the audit file currently being written.
+   *
+   * @return current file, or {@code null} if none is open
+   */
+  public @Nullable Path currentFile() {
+    return this.writer == null ? null : this.writer.currentFile();
+  }
+
+  /**
+   * Creates the echo rate limiter for one player connection.
+   *
+   * @return limiter, or {@code null} for no per-player limit
+   */
+  public @Nullable TokenBucket newPlayerEchoLimiter() {
+    return this.echo && this.perPlayerEchoRateLimit > 0 ? new TokenBucket(this.perPlayerEchoRateLimit, this.perPlayerEchoBurst) : null;
+  }
+
+  /**
+   * Echoes and queues a command. Never waits for the audit files, commands are dropped when the queue is full.
+   *
+   * <p>Whether it is echoed is decided from the command rules, the player's limiter and the global limiter,
+   * and the echo is logged right away. Every command is written to the audit files either way.</p>
+   *
+   * @param player        player UUID
+   * @param playerName    player name
+   * @param command       command without the leading slash
+   * @param playerLimiter the player's echo limiter, see {@link #newPlayerEchoLimiter()}
+   */
+  public void record(final UUID player, final String playerName, final String command, final @Nullable TokenBucket playerLimiter) {
+    if (!this.enabled()) {
+      return;
+    }
+    if (this.echo && this.shouldEcho(command, playerLimiter)) {
+      final long notEchoed = this.notEchoed.getAndSet(0);
+      if (notEchoed > 0) {
+        BetterFabricConsole.LOGGER.info("{} more player commands were not shown on console, see the command audit log", notEchoed);
+      }
+      BetterFabricConsole.LOGGER.info("{} issued server command: /{}", playerName, command);
+    }
+    if (this.writer == null) {
+      return;
+    }
+    if (this.queued.incrementAndGet() > this.queueCapacity) {
+      this.queued.decrementAndGet();
+      this.dropped.incrementAndGet();
+      return;
+    }
+    this.queue.offer(new CommandAuditRecord(System.currentTimeMillis(), player, playerName, command));
+  }
+
+  private boolean shouldEcho(final String command, final @Nullable TokenBucket playerLimiter) {
+    return switch (this.rules.classify(command)) {
+      case HIDDEN -> false;
+      case ALWAYS_SHOWN -> true;
+      case DEFAULT -> {
+        if ((playerLimiter != null && !playerLimiter.tryAcquire()) || (this.echoLimiter != null && !this.echoLimiter.tryAcquire())) {
+          this.notEchoed.incrementAndGet();
+          yield false;
+        }
+        yield true;
+      }
+    };
+  }
+
+  private void drain() {
+    CommandAuditRecord next;
+    while ((next = this.queue.poll()) != null) {
+      this.batch.add(next);
+    }
+    if (this.batch.isEmpty()) {
+      return;
+    }
+    this.queued.addAndGet(-this.batch.size());
+    try {
+      if (this.writer != null) {
+        this.writer.write(this.batch);
+      }
+    } catch (final IOException ex) {
+      LOGGER.warn("Failed to write {} audited commands", this.batch.size(), ex);
+    }
+    final long dropped = this.dropped.getAndSet(0);
+    if (dropped > 0) {
+      LOGGER.warn("Dropped {} player commands from the audit log, the queue was full", dropped);
+    }
+    this.batch.clear();
+  }
+
+  /**
+   * Writes queued commands and closes the current file.
+   */
+  public void close() {
+    this.executor.execute(() -> {
+      this.drain();
+      try {
+        if (this.writer != null) {
+          this.writer.close();
+        }
+      } catch (final IOException ex) {
+        LOGGER.warn("Failed to close command audit file", ex);
+      }
+    });
+    this.executor.shutdown();
+    try {
+      if (!this.executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.warn("Timed out writing queued player commands");
+      }
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
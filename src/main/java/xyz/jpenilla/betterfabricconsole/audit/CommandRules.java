@@ -0,0 +1,144 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.audit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Console echo rules for player commands, keyed by root literal.
+ *
+ * <p>Rules are compiled into a character trie that {@link #classify(String)} walks over the command in
+ * place, without regexes or allocation. Matching ignores case and a leading {@code namespace:}. Configured
+ * roots may be written with a leading {@code /} and a namespace too.</p>
+ */
+@NullMarked
+public final class CommandRules {
+  private final Node root;
+
+  private CommandRules(final Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Compiles rules. When a root is in both collections it is always shown.
+   *
+   * @param hidden      roots never echoed to console
+   * @param alwaysShown roots always echoed, bypassing rate limits
+   * @return rules
+   */
+  public static CommandRules compile(final Collection<String> hidden, final Collection<String> alwaysShown) {
+    final Node root = new Node();
+    for (final String command : hidden) {
+      root.insert(command, Rule.HIDDEN);
+    }
+    for (final String command : alwaysShown) {
+      root.insert(command, Rule.ALWAYS_SHOWN);
+    }
+    return new CommandRules(root);
+  }
+
+  /**
+   * Finds the rule for a command.
+   *
+   * @param command command without the leading slash
+   * @return rule
+   */
+  public Rule classify(final String command) {
+    int end = command.indexOf(' ');
+    if (end == -1) {
+      end = command.length();
+    }
+    // Namespaced roots match by what follows the namespace
+    final int namespace = command.lastIndexOf(':', end - 1);
+    Node node = this.root;
+    for (int i = namespace + 1; i < end; i++) {
+      final @Nullable Node next = node.child(Character.toLowerCase(command.charAt(i)));
+      if (next == null) {
+        return Rule.DEFAULT;
+      }
+      node = next;
+    }
+    return node.rule;
+  }
+
+  public enum Rule {
+    DEFAULT,
+    HIDDEN,
+    ALWAYS_SHOWN
+  }
+
+  private static final class Node {
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private Rule rule = Rule.DEFAULT;
+
+    @Nullable Node child(final char key) {
+      final int index = Arrays.binarySearch(this.keys, key);
+      return index < 0 ? null : this.children[index];
+    }
+
+    void insert(final String command, final Rule rule) {
+      String root = command.strip();
+      int start = 0;
+      while (start < root.length() && root.charAt(start) == '/') {
+        start++;
+      }
+      // Configured like "/minecraft:msg", classify only sees "msg"
+      start = Math.max(start, root.lastIndexOf(':') + 1);
+      root = root.substring(start).toLowerCase(Locale.ROOT);
+      if (root.isEmpty()) {
+        return;
+      }
+      Node node = this;
+      for (int i = 0; i < root.length(); i++) {
+        node = node.getOrCreate(root.charAt(i));
+      }
+      node.rule = rule;
+    }
+
+    private Node getOrCreate(final char key) {
+      final int index = Arrays.binarySearch(this.keys, key);
+      if (index >= 0) {
+        return this.children[index];
+      }
+      final int insert = -index - 1;
+      final Node child = new Node();
+      final char[] keys = new char[this.keys.length + 1];
+      final Node[] children = new Node[this.children.length + 1];
+      System.arraycopy(this.keys, 0, keys, 0, insert);
+      System.arraycopy(this.children, 0, children, 0, insert);
+      keys[insert] = key;
+      children[insert] = child;
+      System.arraycopy(this.keys, insert, keys, insert + 1, this.keys.length - insert);
+      System.arraycopy(this.children, insert, children, insert + 1, this.children.length - insert);
+      this.keys = keys;
+      this.children = children;
+      return child;
+    }
+  }
+}
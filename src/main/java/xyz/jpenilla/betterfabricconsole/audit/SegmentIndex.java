@@ -0,0 +1,207 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.audit;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Index of one audit file, mapping player names and root commands to the offsets of their records.
+ *
+ * <p>Stored next to the audit file as {@code .idx}: a header with the record count and time range, then
+ * each key with its offsets delta and varint encoded. Lookups skip over the posting lists of other keys
+ * without decoding them.</p>
+ */
+@NullMarked
+final class SegmentIndex {
+  static final int MAGIC = 0x42464349; // BFCI
+  static final int VERSION = 1;
+  private static final String PLAYER = "player:";
+  private static final String COMMAND = "command:";
+  // Keys are stored as modified UTF-8, limited to 65535 bytes
+  private static final int MAX_ROOT_LENGTH = 256;
+
+  private SegmentIndex() {
+  }
+
+  static String playerKey(final String playerName) {
+    return PLAYER + playerName.toLowerCase(Locale.ROOT);
+  }
+
+  static String commandKey(final String command) {
+    int start = 0;
+    while (start < command.length() && command.charAt(start) == '/') {
+      start++;
+    }
+    int end = command.indexOf(' ', start);
+    if (end == -1) {
+      end = command.length();
+    }
+    // Namespaced roots are indexed by what follows the namespace
+    start = Math.max(start, command.lastIndexOf(':', end - 1) + 1);
+    end = Math.min(end, start + MAX_ROOT_LENGTH);
+    return COMMAND + command.substring(start, end).toLowerCase(Locale.ROOT);
+  }
+
+  static Path indexFile(final Path auditFile) {
+    final String name = auditFile.getFileName().toString();
+    return auditFile.resolveSibling(name.substring(0, name.indexOf(".bin")) + ".idx");
+  }
+
+  /**
+   * Reads the offsets of records matching any of the keys.
+   *
+   * @param indexFile index file
+   * @param keys      keys
+   * @param since     minimum timestamp, segments ending before it are skipped without reading keys
+   * @return sorted offsets, empty if nothing matches
+   * @throws IOException on read failure or if the file is not an index
+   */
+  static LongArrayList lookup(final Path indexFile, final Set<String> keys, final long since) throws IOException {
+    final LongArrayList offsets = new LongArrayList();
+    try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a command audit index: " + indexFile);
+      }
+      in.readLong(); // min timestamp
+      final long maxTimestamp = in.readLong();
+      final int records = in.readInt();
+      if (records == 0 || maxTimestamp < since) {
+        return offsets;
+      }
+      final int keyCount = in.readInt();
+      for (int i = 0; i < keyCount; i++) {
+        final String key = in.readUTF();
+        final int count = in.readInt();
+        final int length = in.readInt();
+        if (!keys.contains(key)) {
+          in.skipNBytes(length);
+          continue;
+        }
+        long offset = 0;
+        for (int j = 0; j < count; j++) {
+          offset += readVarLong(in);
+          offsets.add(offset);
+        }
+      }
+    }
+    // Postings of several keys may interleave and overlap
+    offsets.unstableSort(null);
+    long last = -1;
+    int distinct = 0;
+    for (int i = 0; i < offsets.size(); i++) {
+      final long offset = offsets.getLong(i);
+      if (offset != last) {
+        offsets.set(distinct++, offset);
+        last = offset;
+      }
+    }
+    offsets.size(distinct);
+    return offsets;
+  }
+
+  private static long readVarLong(final DataInputStream in) throws IOException {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  /**
+   * Collects postings while an audit file is written or scanned.
+   */
+  static final class Builder {
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private int records;
+
+    void add(final long offset, final CommandAuditRecord record) {
+      this.minTimestamp = Math.min(this.minTimestamp, record.timestamp());
+      this.maxTimestamp = Math.max(this.maxTimestamp, record.timestamp());
+      this.records++;
+      this.postings.computeIfAbsent(playerKey(record.playerName()), key -> new Postings()).add(offset);
+      this.postings.computeIfAbsent(commandKey(record.command()), key -> new Postings()).add(offset);
+    }
+
+    void write(final Path indexFile) throws IOException {
+      // A search may index a file the writer is just closing, each writes its own temp file
+      final Path temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+      try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(this.minTimestamp);
+        out.writeLong(this.maxTimestamp);
+        out.writeInt(this.records);
+        out.writeInt(this.postings.size());
+        for (final Map.Entry<String, Postings> entry : this.postings.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeInt(entry.getValue().count);
+          out.writeInt(entry.getValue().length);
+          out.write(entry.getValue().bytes, 0, entry.getValue().length);
+        }
+      }
+      Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  private static final class Postings {
+    private byte[] bytes = new byte[16];
+    private int length;
+    private int count;
+    private long last;
+
+    void add(final long offset) {
+      long delta = offset - this.last;
+      this.last = offset;
+      this.count++;
+      if (this.bytes.length - this.length < 10) {
+        this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+      }
+      while ((delta & ~0x7FL) != 0) {
+        this.bytes[this.length++] = (byte) ((delta & 0x7F) | 0x80);
+        delta >>>= 7;
+      }
+      this.bytes[this.length++] = (byte) delta;
+    }
+  }
+}
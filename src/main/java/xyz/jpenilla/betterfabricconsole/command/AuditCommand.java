@@ -0,0 +1,149 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.LiteralMessage;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import com.mojang.logging.LogUtils;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.kyori.adventure.text.Component;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.SharedSuggestionProvider;
+import net.minecraft.server.MinecraftServer;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.BetterFabricConsole;
+import xyz.jpenilla.betterfabricconsole.audit.AuditSearch;
+import xyz.jpenilla.betterfabricconsole.audit.CommandAuditLog;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.kyori.adventure.text.format.NamedTextColor.RED;
+import static net.kyori.adventure.text.format.NamedTextColor.WHITE;
+import static net.minecraft.commands.Commands.argument;
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * {@code better-fabric-console audit <player|command> [since]}, searches the player command audit log.
+ *
+ * <p>A term starting with {@code /} only matches root commands. Brigadier only allows {@code /} in quoted
+ * strings, so it is written as {@code audit "/give" 1d}.</p>
+ */
+@NullMarked
+public final class AuditCommand {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final int MAX_RESULTS = 200;
+  private static final List<String> SINCE_SUGGESTIONS = List.of("1h", "1d", "7d", "30d");
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT)
+    .withZone(ZoneId.systemDefault());
+  private static final DynamicCommandExceptionType INVALID_SINCE =
+    new DynamicCommandExceptionType(since -> new LiteralMessage("Invalid time '" + since + "', expected a number followed by s, m, h or d"));
+  private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+    final Thread thread = new Thread(task, "Command audit search");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private AuditCommand() {
+  }
+
+  public static LiteralArgumentBuilder<CommandSourceStack> create() {
+    return literal("audit")
+      .then(argument("player|command", StringArgumentType.string())
+        .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(ctx.getSource().getOnlinePlayerNames(), builder))
+        .executes(ctx -> search(ctx, 0))
+        .then(argument("since", StringArgumentType.word())
+          .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(SINCE_SUGGESTIONS, builder))
+          .executes(ctx -> search(ctx, System.currentTimeMillis() - since(ctx).toMillis()))));
+  }
+
+  private static Duration since(final CommandContext<CommandSourceStack> ctx) throws CommandSyntaxException {
+    final String since = StringArgumentType.getString(ctx, "since");
+    if (since.length() < 2) {
+      throw INVALID_SINCE.create(since);
+    }
+    final long amount;
+    try {
+      amount = Long.parseLong(since.substring(0, since.length() - 1));
+    } catch (final NumberFormatException ex) {
+      throw INVALID_SINCE.create(since);
+    }
+    return switch (Character.toLowerCase(since.charAt(since.length() - 1))) {
+      case 's' -> Duration.ofSeconds(amount);
+      case 'm' -> Duration.ofMinutes(amount);
+      case 'h' -> Duration.ofHours(amount);
+      case 'd' -> Duration.ofDays(amount);
+      default -> throw INVALID_SINCE.create(since);
+    };
+  }
+
+  private static int search(final CommandContext<CommandSourceStack> ctx, final long since) {
+    final CommandSourceStack source = ctx.getSource();
+    final @Nullable CommandAuditLog log = BetterFabricConsole.instance().commandAudit();
+    if (log == null) {
+      source.sendMessage(text("The command audit log is not running.", RED));
+      return 0;
+    }
+    final String term = StringArgumentType.getString(ctx, "player|command");
+    final MinecraftServer server = source.getServer();
+    source.sendMessage(Messages.header("Command audit", "'" + term + "'" + (since > 0 ? " since " + TIME.format(Instant.ofEpochMilli(since)) : "")));
+    // Results are sent from the server thread as they are found
+    SEARCH_EXECUTOR.execute(() -> {
+      try {
+        final int found = AuditSearch.search(log, term, since, MAX_RESULTS, record -> {
+          final Component line = text()
+            .append(text(TIME.format(Instant.ofEpochMilli(record.timestamp())) + " ", GRAY))
+            .append(text(record.playerName(), Messages.PINK))
+            .append(text(": /" + record.command(), WHITE))
+            .build();
+          server.execute(() -> source.sendMessage(line));
+        });
+        server.execute(() -> source.sendMessage(text(
+          found == 0 ? "No matching commands."
+            : found >= MAX_RESULTS ? "Showing the first " + MAX_RESULTS + " matches, narrow the search with a later since."
+            : found + " matching command(s).",
+          GRAY
+        )));
+      } catch (final IOException ex) {
+        LOGGER.warn("Failed to search the command audit log", ex);
+        server.execute(() -> source.sendMessage(text("Search failed: " + ex.getMessage(), RED)));
+      }
+    });
+    return Command.SINGLE_SUCCESS;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import java.util.regex.PatternSyntaxException;
+import net.minecraft.commands.CommandSourceStack;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.BetterFabricConsolePreLaunch;
+import xyz.jpenilla.betterfabricconsole.console.OutputFilter;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.kyori.adventure.text.format.NamedTextColor.RED;
+import static net.minecraft.commands.Commands.argument;
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * {@code better-fabric-console filter [clear|<expression>]}, only shows console messages matching an expression.
+ *
+ * <p>{@code clear} always removes the filter. To show messages containing "clear", use {@code /clear/}.</p>
+ */
+@NullMarked
+public final class FilterCommand {
+  private FilterCommand() {
+  }
+
+  public static LiteralArgumentBuilder<CommandSourceStack> create() {
+    return literal("filter")
+      .executes(FilterCommand::show)
+      .then(literal("clear").executes(FilterCommand::clear))
+      .then(argument("expression", StringArgumentType.greedyString()).executes(FilterCommand::set));
+  }
+
+  private static OutputFilter filter() {
+    return BetterFabricConsolePreLaunch.instance().consoleState().outputFilter();
+  }
+
+  private static int show(final CommandContext<CommandSourceStack> ctx) {
+    final OutputFilter.@Nullable Expression expression = filter().expression();
+    if (expression == null) {
+      ctx.getSource().sendMessage(text("No console filter set. Use text or /regex/, optionally after logger:<name> and level:<LEVEL>. "
+        + "Start with ! to hide matches instead.", GRAY));
+    } else {
+      ctx.getSource().sendMessage(Messages.keyValue("Console filter", expression.source()));
+    }
+    return Command.SINGLE_SUCCESS;
+  }
+
+  private static int clear(final CommandContext<CommandSourceStack> ctx) {
+    filter().expression(null);
+    ctx.getSource().sendMessage(text("Cleared console filter.", GRAY));
+    return Command.SINGLE_SUCCESS;
+  }
+
+  private static int set(final CommandContext<CommandSourceStack> ctx) {
+    final String source = StringArgumentType.getString(ctx, "expression");
+    final OutputFilter.Expression expression;
+    try {
+      expression = OutputFilter.Expression.compile(source);
+    } catch (final PatternSyntaxException ex) {
+      ctx.getSource().sendMessage(text("Invalid regex: " + ex.getDescription(), RED));
+      return 0;
+    } catch (final IllegalArgumentException ex) {
+      ctx.getSource().sendMessage(text(ex.getMessage(), RED));
+      return 0;
+    }
+    // Report before filtering, the confirmation may not match
+    ctx.getSource().sendMessage(Messages.keyValue("Console filter", source));
+    filter().expression(expression);
+    return Command.SINGLE_SUCCESS;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import java.time.Duration;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextColor;
+import org.jspecify.annotations.NullMarked;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.kyori.adventure.text.format.NamedTextColor.WHITE;
+import static net.kyori.adventure.text.format.TextColor.color;
+import static net.kyori.adventure.text.format.TextDecoration.BOLD;
+
+/**
+ * Shared formatting for command feedback.
+ */
+@NullMarked
+final class Messages {
+  static final TextColor PINK = color(0xFF79C6);
+
+  private Messages() {
+  }
+
+  static Component header(final String title, final String detail) {
+    return text()
+      .color(GRAY)
+      .append(text(title, PINK, BOLD))
+      .append(text(" " + detail))
+      .build();
+  }
+
+  static Component keyValue(final String key, final String value) {
+    return text()
+      .color(GRAY)
+      .append(text(key + ": "))
+      .append(text(value, WHITE))
+      .build();
+  }
+
+  static String nanos(final long nanos) {
+    if (nanos < 1_000L) {
+      return nanos + "ns";
+    } else if (nanos < 1_000_000L) {
+      return String.format("%.1fµs", nanos / 1_000.0D);
+    } else if (nanos < 1_000_000_000L) {
+      return String.format("%.2fms", nanos / 1_000_000.0D);
+    }
+    return String.format("%.2fs", nanos / 1_000_000_000.0D);
+  }
+
+  static String duration(final Duration duration) {
+    if (duration.toHours() > 0) {
+      return duration.toHours() + "h " + duration.toMinutesPart() + "m";
+    } else if (duration.toMinutes() > 0) {
+      return duration.toMinutes() + "m " + duration.toSecondsPart() + "s";
+    }
+    return duration.toSeconds() + "s";
+  }
+}
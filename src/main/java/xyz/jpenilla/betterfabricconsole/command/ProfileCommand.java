@@ -0,0 +1,89 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.commands.CommandSourceStack;
+import org.jspecify.annotations.NullMarked;
+import xyz.jpenilla.betterfabricconsole.profiler.SamplingProfiler;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.kyori.adventure.text.format.NamedTextColor.RED;
+import static net.minecraft.commands.Commands.argument;
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * {@code better-fabric-console profile start [duration] [interval]|stop}, samples the server thread.
+ */
+@NullMarked
+public final class ProfileCommand {
+  private static final int DEFAULT_DURATION_SECONDS = 30;
+  private static final int DEFAULT_INTERVAL_MILLIS = 10;
+
+  private ProfileCommand() {
+  }
+
+  public static LiteralArgumentBuilder<CommandSourceStack> create() {
+    return literal("profile")
+      .then(literal("start")
+        .executes(ctx -> start(ctx, DEFAULT_DURATION_SECONDS, DEFAULT_INTERVAL_MILLIS))
+        .then(argument("duration", IntegerArgumentType.integer(1, 3600))
+          .executes(ctx -> start(ctx, IntegerArgumentType.getInteger(ctx, "duration"), DEFAULT_INTERVAL_MILLIS))
+          .then(argument("interval", IntegerArgumentType.integer(1, 1000))
+            .executes(ctx -> start(ctx, IntegerArgumentType.getInteger(ctx, "duration"), IntegerArgumentType.getInteger(ctx, "interval"))))))
+      .then(literal("stop")
+        .executes(ProfileCommand::stop));
+  }
+
+  private static int start(final CommandContext<CommandSourceStack> ctx, final int durationSeconds, final int intervalMillis) {
+    final CommandSourceStack source = ctx.getSource();
+    final boolean started = SamplingProfiler.start(
+      source.getServer().getRunningThread(),
+      durationSeconds,
+      intervalMillis,
+      FabricLoader.getInstance().getGameDir().resolve("debug").resolve("better-fabric-console")
+    );
+    if (!started) {
+      source.sendMessage(text("A profile is already running, stop it first.", RED));
+      return 0;
+    }
+    source.sendMessage(Messages.header("Profiling server thread", "for " + durationSeconds + "s every " + intervalMillis + "ms"));
+    source.sendMessage(text("The report is logged when the profile stops.", GRAY));
+    return Command.SINGLE_SUCCESS;
+  }
+
+  private static int stop(final CommandContext<CommandSourceStack> ctx) {
+    if (!SamplingProfiler.stop()) {
+      ctx.getSource().sendMessage(text("No profile is running.", RED));
+      return 0;
+    }
+    ctx.getSource().sendMessage(text("Profile stopped, the report will be logged shortly.", GRAY));
+    return Command.SINGLE_SUCCESS;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.server.MinecraftServer;
+import org.jspecify.annotations.NullMarked;
+import xyz.jpenilla.betterfabricconsole.BetterFabricConsole;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.kyori.adventure.text.format.NamedTextColor.GREEN;
+import static net.kyori.adventure.text.format.NamedTextColor.RED;
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * {@code better-fabric-console reload}, reloads the config file.
+ */
+@NullMarked
+public final class ReloadCommand {
+  private ReloadCommand() {
+  }
+
+  public static LiteralArgumentBuilder<CommandSourceStack> create() {
+    return literal("reload")
+      .executes(ReloadCommand::reload);
+  }
+
+  private static int reload(final CommandContext<CommandSourceStack> ctx) {
+    final CommandSourceStack source = ctx.getSource();
+    final MinecraftServer server = source.getServer();
+    BetterFabricConsole.instance().reloadConfig().whenComplete((config, ex) -> server.execute(() -> {
+      if (ex != null) {
+        source.sendMessage(text("Failed to reload config: " + (ex.getCause() == null ? ex : ex.getCause()).getMessage(), RED));
+        return;
+      }
+      source.sendMessage(text("Reloaded config.", GREEN));
+      source.sendMessage(text("The log pattern, stack traces, logger rules and highlight colors apply now, other settings after a restart.", GRAY));
+    }));
+    return Command.SINGLE_SUCCESS;
+  }
+}
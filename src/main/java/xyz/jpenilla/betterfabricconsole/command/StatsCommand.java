@@ -0,0 +1,112 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.minecraft.commands.CommandSourceStack;
+import org.jspecify.annotations.NullMarked;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+import xyz.jpenilla.betterfabricconsole.metrics.LatencyHistogram;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.kyori.adventure.text.format.NamedTextColor.WHITE;
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * {@code better-fabric-console stats [reset]}, shows console pipeline latencies and counters.
+ */
+@NullMarked
+public final class StatsCommand {
+  private static final int TOP_COMMANDS = 5;
+
+  private StatsCommand() {
+  }
+
+  public static LiteralArgumentBuilder<CommandSourceStack> create() {
+    return literal("stats")
+      .executes(StatsCommand::show)
+      .then(literal("reset").executes(StatsCommand::reset));
+  }
+
+  private static int show(final CommandContext<CommandSourceStack> ctx) {
+    final CommandSourceStack source = ctx.getSource();
+    final Duration since = Duration.ofMillis(System.currentTimeMillis() - ConsoleMetrics.lastReset());
+    source.sendMessage(Messages.header("Console stats", "over the last " + Messages.duration(since)));
+
+    for (final Map.Entry<String, LatencyHistogram> stage : ConsoleMetrics.stages().entrySet()) {
+      source.sendMessage(histogramLine(stage.getKey(), stage.getValue().snapshot()));
+    }
+
+    final long highlights = ConsoleMetrics.highlight().snapshot().count();
+    for (final Map.Entry<String, LongAdder> counter : ConsoleMetrics.counters().entrySet()) {
+      source.sendMessage(Messages.keyValue(counter.getKey(), Long.toString(counter.getValue().sum())));
+    }
+    if (highlights > 0) {
+      final double hitRate = 100.0D * ConsoleMetrics.highlightCacheHits().sum() / highlights;
+      source.sendMessage(Messages.keyValue("highlight cache hit rate", String.format("%.1f%%", hitRate)));
+    }
+
+    final List<Map.Entry<String, LatencyHistogram.Snapshot>> slowest = ConsoleMetrics.commands().entrySet().stream()
+      .map(entry -> Map.entry(entry.getKey(), entry.getValue().snapshot()))
+      .sorted(Comparator.comparingLong((Map.Entry<String, LatencyHistogram.Snapshot> entry) -> entry.getValue().valueAtPercentile(99)).reversed())
+      .limit(TOP_COMMANDS)
+      .toList();
+    if (!slowest.isEmpty()) {
+      source.sendMessage(text("Slowest commands (by p99 parse time):", GRAY));
+      for (final Map.Entry<String, LatencyHistogram.Snapshot> entry : slowest) {
+        source.sendMessage(histogramLine("/" + entry.getKey(), entry.getValue()));
+      }
+    }
+    return Command.SINGLE_SUCCESS;
+  }
+
+  private static int reset(final CommandContext<CommandSourceStack> ctx) {
+    ConsoleMetrics.reset();
+    ctx.getSource().sendMessage(text("Reset console stats.", GRAY));
+    return Command.SINGLE_SUCCESS;
+  }
+
+  private static Component histogramLine(final String name, final LatencyHistogram.Snapshot snapshot) {
+    final TextComponent.Builder builder = text().color(GRAY)
+      .append(text(name, WHITE))
+      .append(text(": " + snapshot.count() + " calls"));
+    if (snapshot.count() > 0) {
+      builder.append(text(", p50 ")).append(text(Messages.nanos(snapshot.valueAtPercentile(50)), WHITE))
+        .append(text(", p99 ")).append(text(Messages.nanos(snapshot.valueAtPercentile(99)), WHITE))
+        .append(text(", p99.9 ")).append(text(Messages.nanos(snapshot.valueAtPercentile(99.9)), WHITE))
+        .append(text(", max ")).append(text(Messages.nanos(snapshot.max()), WHITE));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.LiteralMessage;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import java.util.List;
+import java.util.Locale;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.SharedSuggestionProvider;
+import org.apache.logging.log4j.Level;
+import org.jline.utils.AttributedString;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.BetterFabricConsolePreLaunch;
+import xyz.jpenilla.betterfabricconsole.console.ConsoleState;
+import xyz.jpenilla.betterfabricconsole.console.RecentLines;
+
+import static net.kyori.adventure.text.Component.text;
+import static net.kyori.adventure.text.format.NamedTextColor.GRAY;
+import static net.minecraft.commands.Commands.argument;
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * {@code better-fabric-console tail [lines] [level]}, shows recent console output from memory.
+ */
+@NullMarked
+public final class TailCommand {
+  private static final int DEFAULT_LINES = 50;
+  private static final List<String> LEVELS = List.of("FATAL", "ERROR", "WARN", "INFO", "DEBUG", "TRACE");
+  private static final DynamicCommandExceptionType UNKNOWN_LEVEL =
+    new DynamicCommandExceptionType(level -> new LiteralMessage("Unknown level '" + level + "'"));
+
+  private TailCommand() {
+  }
+
+  public static LiteralArgumentBuilder<CommandSourceStack> create() {
+    return literal("tail")
+      .executes(ctx -> tail(ctx, DEFAULT_LINES, Level.ALL))
+      .then(argument("lines", IntegerArgumentType.integer(1))
+        .executes(ctx -> tail(ctx, IntegerArgumentType.getInteger(ctx, "lines"), Level.ALL))
+        .then(argument("level", StringArgumentType.word())
+          .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(LEVELS, builder))
+          .executes(ctx -> tail(ctx, IntegerArgumentType.getInteger(ctx, "lines"), level(ctx)))));
+  }
+
+  private static Level level(final CommandContext<CommandSourceStack> ctx) throws CommandSyntaxException {
+    final String name = StringArgumentType.getString(ctx, "level");
+    final @Nullable Level level = Level.getLevel(name.toUpperCase(Locale.ROOT));
+    if (level == null) {
+      throw UNKNOWN_LEVEL.create(name);
+    }
+    return level;
+  }
+
+  private static int tail(final CommandContext<CommandSourceStack> ctx, final int count, final Level minLevel) {
+    final ConsoleState console = BetterFabricConsolePreLaunch.instance().consoleState();
+    final List<RecentLines.Line> lines = console.recentLines().tail(count, minLevel);
+    final CommandSourceStack source = ctx.getSource();
+    if (lines.isEmpty()) {
+      source.sendMessage(text("No recent console output" + (minLevel == Level.ALL ? "." : " at " + minLevel + " or above."), GRAY));
+      return 0;
+    }
+
+    if (isConsole(source)) {
+      // Print as-is, sending it as messages would log every line again with a second prefix
+      final StringBuilder output = new StringBuilder();
+      for (final RecentLines.Line line : lines) {
+        output.append(stripLineBreak(line.text())).append(System.lineSeparator());
+      }
+      console.print(output.toString());
+    } else {
+      for (final RecentLines.Line line : lines) {
+        source.sendMessage(text(stripLineBreak(AttributedString.stripAnsi(line.text()))));
+      }
+    }
+    return lines.size();
+  }
+
+  private static boolean isConsole(final CommandSourceStack source) {
+    // The console runs commands from MinecraftServer#createCommandSourceStack, rcon and command blocks have their own sources
+    return source.source == source.getServer();
+  }
+
+  private static String stripLineBreak(final String text) {
+    int end = text.length();
+    while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+      end--;
+    }
+    return text.substring(0, end);
+  }
+}
@@ -23,7 +23,10 @@
  */
 package xyz.jpenilla.betterfabricconsole.configuration;
 
+import java.util.List;
+import java.util.Map;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 import org.spongepowered.configurate.objectmapping.meta.Comment;
 
@@ -54,6 +57,187 @@ public final class Config {
     }
   }
 
+  @ConfigSerializable
+  public static final class SyntaxColors {
+    private StyleColor keys = StyleColor.CYAN;
+    private StyleColor strings = StyleColor.GREEN;
+    private StyleColor numbers = StyleColor.YELLOW;
+    private StyleColor literals = StyleColor.MAGENTA;
+
+    public StyleColor keys() {
+      return this.keys;
+    }
+
+    public StyleColor strings() {
+      return this.strings;
+    }
+
+    public StyleColor numbers() {
+      return this.numbers;
+    }
+
+    public StyleColor literals() {
+      return this.literals;
+    }
+  }
+
+  @ConfigSerializable
+  public static final class StackTraces {
+    @Comment("Whether to print each distinct stack trace in full only once, and repeats as a \"[repeat #id xN]\" line.\n"
+      + "Traces are compared by exception class and frames, and printed in full again after 5 minutes.")
+    private boolean fold = true;
+    @Comment("Whether to collapse runs of library frames in the full traces into a \"... N library frames\" line.")
+    private boolean collapseLibraryFrames = false;
+    @Comment("Class name prefixes of library frames.")
+    private List<String> libraryPackages = List.of("java.", "jdk.", "sun.", "com.mojang.", "net.minecraft.", "net.fabricmc.", "org.spongepowered.asm.");
+
+    public boolean fold() {
+      return this.fold;
+    }
+
+    public boolean collapseLibraryFrames() {
+      return this.collapseLibraryFrames;
+    }
+
+    public List<String> libraryPackages() {
+      return this.libraryPackages;
+    }
+  }
+
+  @ConfigSerializable
+  public static final class ConsoleLoggerRule {
+    @Comment("Minimum level shown on the console, i.e. WARN. Unset to show everything that is logged.")
+    private @Nullable String level = null;
+    @Comment("Messages per second shown on the console, shared by the logger and its children. 0 for no limit.")
+    private double rateLimit = 0;
+    @Comment("Messages shown at once after a quiet period when rate limited.")
+    private int burst = 20;
+
+    public @Nullable String level() {
+      return this.level;
+    }
+
+    public double rateLimit() {
+      return this.rateLimit;
+    }
+
+    public int burst() {
+      return this.burst;
+    }
+  }
+
+  @ConfigSerializable
+  public static final class MemoryWatchdog {
+    @Comment("Whether to warn on the console about long GC pauses and high allocation rates.")
+    private boolean enabled = true;
+    @Comment("GC pauses longer than this many milliseconds are reported.")
+    private int gcPauseMillis = 500;
+    @Comment("Allocation rate in megabytes per second which, when sustained for allocation-rate-window-seconds,\n"
+      + "is reported together with the threads allocating the most. 0 to disable.")
+    private int allocationRateMegabytesPerSecond = 2048;
+    @Comment("Time in seconds the allocation rate is averaged over.")
+    private int allocationRateWindowSeconds = 10;
+    @Comment("Minimum time in seconds between two warnings of the same kind.")
+    private int warningIntervalSeconds = 60;
+    @Comment("Number of top allocating threads listed in allocation rate warnings.")
+    private int topThreads = 3;
+
+    public boolean enabled() {
+      return this.enabled;
+    }
+
+    public int gcPauseMillis() {
+      return this.gcPauseMillis;
+    }
+
+    public int allocationRateMegabytesPerSecond() {
+      return this.allocationRateMegabytesPerSecond;
+    }
+
+    public int allocationRateWindowSeconds() {
+      return this.allocationRateWindowSeconds;
+    }
+
+    public int warningIntervalSeconds() {
+      return this.warningIntervalSeconds;
+    }
+
+    public int topThreads() {
+      return this.topThreads;
+    }
+  }
+
+  @ConfigSerializable
+  public static final class CommandAudit {
+    @Comment("Whether to write commands executed by players to binary audit files in logs/command-audit.")
+    private boolean enabled = true;
+    @Comment("Whether to gzip audit files.")
+    private boolean compress = true;
+    @Comment("Uncompressed size in megabytes, at least 1, after which a new audit file is started. Files also roll over daily.")
+    private int maxFileMegabytes = 64;
+    @Comment("Time in milliseconds between batched writes of queued commands, at least 1.")
+    private int flushIntervalMillis = 1000;
+    @Comment("Maximum number of commands waiting to be written. Commands beyond this are dropped and counted.")
+    private int queueCapacity = 65536;
+    @Comment("Player commands echoed to console per second, see log-player-executed-commands. 0 for no limit.")
+    private double echoRateLimit = 20;
+    @Comment("Player commands echoed at once after a quiet period when rate limited, at least 1.")
+    private int echoBurst = 40;
+    @Comment("Root commands never echoed to console, i.e. \"msg\" also hides \"/minecraft:msg Notch hi\".\n"
+      + "They are still written to the audit files.")
+    private List<String> hiddenCommands = List.of();
+    @Comment("Root commands always echoed to console, bypassing rate limits.")
+    private List<String> alwaysShownCommands = List.of("op", "deop", "gamemode", "give", "ban", "ban-ip", "pardon", "whitelist", "stop");
+    @Comment("Player commands echoed to console per second for each player. 0 for no limit.")
+    private double perPlayerEchoRateLimit = 2;
+    @Comment("Player commands echoed at once for each player after a quiet period when rate limited, at least 1.")
+    private int perPlayerEchoBurst = 10;
+
+    public boolean enabled() {
+      return this.enabled;
+    }
+
+    public boolean compress() {
+      return this.compress;
+    }
+
+    public int maxFileMegabytes() {
+      return this.maxFileMegabytes;
+    }
+
+    public int flushIntervalMillis() {
+      return this.flushIntervalMillis;
+    }
+
+    public int queueCapacity() {
+      return this.queueCapacity;
+    }
+
+    public double echoRateLimit() {
+      return this.echoRateLimit;
+    }
+
+    public int echoBurst() {
+      return this.echoBurst;
+    }
+
+    public List<String> hiddenCommands() {
+      return this.hiddenCommands;
+    }
+
+    public List<String> alwaysShownCommands() {
+      return this.alwaysShownCommands;
+    }
+
+    public double perPlayerEchoRateLimit() {
+      return this.perPlayerEchoRateLimit;
+    }
+
+    public int perPlayerEchoBurst() {
+      return this.perPlayerEchoBurst;
+    }
+  }
+
   @Comment("Log4j logger pattern. See https://logging.apache.org/log4j/2.x/manual/layouts.html#Patterns for documentation.")
   private String logPattern = "%highlight{[%d{HH:mm:ss} %level] [%t]: [%logger{1}]}{FATAL=red, ERROR=red, WARN=yellow, INFO=default, DEBUG=yellow, TRACE=blue} %paperMinecraftFormatting{%msg}%n";
 
@@ -68,7 +252,94 @@ public final class Config {
     return this.highlightColors;
   }
 
-  @Comment("Whether to log commands executed by players to console.")
+  @Comment("Colors for keys, strings, numbers and other values inside NBT, JSON text component and block state arguments.\n"
+    + "Brackets cycle through the argument highlight colors by nesting depth.")
+  private SyntaxColors syntaxColors = new SyntaxColors();
+
+  public SyntaxColors syntaxColors() {
+    return this.syntaxColors;
+  }
+
+  @Comment("Time in milliseconds a single command highlight may take before highlighting is briefly paused,\n"
+    + "falling back to the last highlight or plain text. Protects typing from slow (modded) argument parsers. 0 to disable.")
+  private int highlightTimeBudgetMillis = 25;
+
+  public int highlightTimeBudgetMillis() {
+    return this.highlightTimeBudgetMillis;
+  }
+
+  @Comment("Time in milliseconds after a message is printed in which identical messages from the same logger are\n"
+    + "collapsed into a single \"Previous message repeated N more times\" line on the console, e.g. 2000.\n"
+    + "0 to disable (default). Messages with an exception are never collapsed. The log file is not affected.")
+  private int collapseRepeatedMessagesMillis = 0;
+
+  public int collapseRepeatedMessagesMillis() {
+    return this.collapseRepeatedMessagesMillis;
+  }
+
+  @Comment("Stack traces on the console. The log file always has full traces.")
+  private StackTraces stackTraces = new StackTraces();
+
+  public StackTraces stackTraces() {
+    return this.stackTraces;
+  }
+
+  @Comment("Console-only rules for loggers and their children, keyed by logger name or package. The log file is not affected.\n"
+    + "Example: \"com.example.noisymod\"={level=WARN, rate-limit=5}")
+  private Map<String, ConsoleLoggerRule> consoleLoggerRules = Map.of();
+
+  public Map<String, ConsoleLoggerRule> consoleLoggerRules() {
+    return this.consoleLoggerRules;
+  }
+
+  @Comment("Memory in megabytes for console output history, kept off-heap. Press Page Up at the prompt to browse and search it.\n"
+    + "0 to disable. Not available in dumb terminals.")
+  private int scrollbackMegabytes = 8;
+
+  public int scrollbackMegabytes() {
+    return this.scrollbackMegabytes;
+  }
+
+  @Comment("Number of recent console lines kept for \"better-fabric-console tail\", rounded up to a power of two.")
+  private int recentLines = 1024;
+
+  public int recentLines() {
+    return this.recentLines;
+  }
+
+  @Comment("Refresh interval in milliseconds of the status line at the bottom of the console (TPS, MSPT, heap, players and\n"
+    + "console output rate). 0 to disable. Not available in dumb terminals.")
+  private int statusBarRefreshMillis = 1000;
+
+  public int statusBarRefreshMillis() {
+    return this.statusBarRefreshMillis;
+  }
+
+  @Comment("Whether to reload this file when it changes. \"better-fabric-console reload\" reloads it on demand.\n"
+    + "The log pattern, stack traces, console logger rules and highlight colors apply immediately,\n"
+    + "everything else after a restart.")
+  private boolean reloadOnChange = true;
+
+  public boolean reloadOnChange() {
+    return this.reloadOnChange;
+  }
+
+  @Comment("Console warnings about GC pauses and memory allocation pressure.")
+  private MemoryWatchdog memoryWatchdog = new MemoryWatchdog();
+
+  public MemoryWatchdog memoryWatchdog() {
+    return this.memoryWatchdog;
+  }
+
+  @Comment("Player command audit log.")
+  private CommandAudit commandAudit = new CommandAudit();
+
+  public CommandAudit commandAudit() {
+    return this.commandAudit;
+  }
+
+  @Comment("Whether to log commands executed by players to console. Echoes are logged right away on the thread\n"
+    + "handling the command, rate limited by the command-audit echo settings. Writing the audit files is queued.")
   private boolean logPlayerExecutedCommands = true;
 
   public boolean logPlayerExecutedCommands() {
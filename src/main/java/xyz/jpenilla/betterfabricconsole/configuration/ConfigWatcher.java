@@ -0,0 +1,107 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.configuration;
+
+import com.mojang.logging.LogUtils;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+
+/**
+ * Watches the config file and runs a callback when it changes.
+ *
+ * <p>Editors often save in several steps, so changes are debounced: the callback runs once the file has
+ * been quiet for a moment.</p>
+ */
+@NullMarked
+public final class ConfigWatcher {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final long DEBOUNCE_MILLIS = 500;
+
+  private ConfigWatcher() {
+  }
+
+  /**
+   * Starts watching on a daemon thread.
+   *
+   * @param file     config file
+   * @param onChange callback, run on the watcher thread
+   */
+  public static void start(final Path file, final Runnable onChange) {
+    final WatchService watcher;
+    try {
+      watcher = FileSystems.getDefault().newWatchService();
+      file.getParent().register(
+        watcher,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY
+      );
+    } catch (final IOException ex) {
+      LOGGER.warn("Failed to watch {} for changes, use \"better-fabric-console reload\" instead", file, ex);
+      return;
+    }
+    final Thread thread = new Thread(() -> watch(watcher, file.getFileName(), onChange), "Config watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void watch(final WatchService watcher, final Path fileName, final Runnable onChange) {
+    try (watcher) {
+      while (true) {
+        if (!changed(watcher.take(), fileName)) {
+          continue;
+        }
+        // Swallow the rest of this save
+        WatchKey key;
+        while ((key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          changed(key, fileName);
+        }
+        onChange.run();
+      }
+    } catch (final InterruptedException | ClosedWatchServiceException ex) {
+      // Stopped
+    } catch (final IOException ex) {
+      LOGGER.warn("Failed to close config watcher", ex);
+    }
+  }
+
+  private static boolean changed(final WatchKey key, final Path fileName) {
+    boolean changed = false;
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      if (fileName.equals(event.context())) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+}
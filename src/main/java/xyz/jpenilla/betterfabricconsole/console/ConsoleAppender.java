@@ -23,6 +23,9 @@
  */
 package xyz.jpenilla.betterfabricconsole.console;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.appender.rewrite.RewritePolicy;
@@ -31,44 +34,224 @@ import org.apache.logging.log4j.core.layout.PatternLayout;
 import org.jline.reader.LineReader;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.ConsoleAppendEvent;
 
 @NullMarked
 final class ConsoleAppender extends AbstractAppender {
   private final LineReader lineReader;
   private final @Nullable RewritePolicy rewriter;
+  private final @Nullable RepeatedMessageCollapser collapser;
+  private volatile Rendering rendering;
+  private final @Nullable Scrollback scrollback;
+  private final RecentLines recentLines;
+  private @Nullable ScheduledExecutorService collapserExpiry;
 
+  /**
+   * Creates the appender.
+   *
+   * @param lineReader          line reader
+   * @param logPattern          layout pattern
+   * @param rewritePolicy       rewrite policy applied before formatting
+   * @param collapseWindowNanos window in which repeated messages are collapsed, or {@code 0} to print all
+   * @param stackTraceFolder    renders throwables instead of the layout, if not {@code null}
+   * @param scrollback          keeps printed output for the pager, if not {@code null}
+   * @param recentLines         keeps recent output for tail and replay
+   */
   ConsoleAppender(
     final LineReader lineReader,
     final String logPattern,
-    final @Nullable RewritePolicy rewritePolicy
+    final @Nullable RewritePolicy rewritePolicy,
+    final long collapseWindowNanos,
+    final @Nullable StackTraceFolder stackTraceFolder,
+    final @Nullable Scrollback scrollback,
+    final RecentLines recentLines
   ) {
-    super(
-      "Console",
-      null,
-      PatternLayout.newBuilder().withPattern(logPattern).build(),
-      false,
-      new Property[0]
-    );
+    this(lineReader, new Rendering(logPattern, stackTraceFolder), rewritePolicy, collapseWindowNanos, scrollback, recentLines);
+  }
+
+  private ConsoleAppender(
+    final LineReader lineReader,
+    final Rendering rendering,
+    final @Nullable RewritePolicy rewritePolicy,
+    final long collapseWindowNanos,
+    final @Nullable Scrollback scrollback,
+    final RecentLines recentLines
+  ) {
+    super("Console", null, rendering.layout(), false, new Property[0]);
     this.lineReader = lineReader;
     this.rewriter = rewritePolicy;
+    this.rendering = rendering;
+    this.scrollback = scrollback;
+    this.recentLines = recentLines;
+    this.collapser = collapseWindowNanos > 0 ? new RepeatedMessageCollapser(collapseWindowNanos, this::write) : null;
+  }
+
+  /**
+   * Replaces the layout and stack trace folder. The new layout is built on the calling thread, events
+   * being written meanwhile finish with the old one.
+   *
+   * @param logPattern       layout pattern
+   * @param stackTraceFolder renders throwables instead of the layout, if not {@code null}
+   */
+  void reconfigure(final String logPattern, final @Nullable StackTraceFolder stackTraceFolder) {
+    this.rendering = new Rendering(logPattern, stackTraceFolder);
+  }
+
+  @Override
+  public void start() {
+    super.start();
+    final @Nullable RepeatedMessageCollapser collapser = this.collapser;
+    if (collapser != null) {
+      this.collapserExpiry = Executors.newSingleThreadScheduledExecutor(task -> {
+        final Thread thread = new Thread(task, "Console repeat collapser");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final long period = collapser.windowNanos();
+      this.collapserExpiry.scheduleAtFixedRate(() -> collapser.expire(System.nanoTime()), period, period, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public boolean stop(final long timeout, final TimeUnit timeUnit) {
+    if (this.collapserExpiry != null) {
+      this.collapserExpiry.shutdownNow();
+      this.collapserExpiry = null;
+    }
+    if (this.collapser != null) {
+      // Report pending repeats
+      this.collapser.expire(Long.MAX_VALUE);
+    }
+    return super.stop(timeout, timeUnit);
   }
 
   private LogEvent rewrite(final LogEvent event) {
     return this.rewriter == null ? event : this.rewriter.rewrite(event);
   }
 
+  private String format(final LogEvent event) {
+    final Rendering rendering = this.rendering;
+    final String formatted = rendering.layout().toSerializable(event);
+    final @Nullable Throwable thrown = event.getThrown();
+    final @Nullable StackTraceFolder stackTraceFolder = rendering.stackTraceFolder();
+    if (stackTraceFolder == null || thrown == null) {
+      return formatted;
+    }
+    final StringBuilder builder = new StringBuilder(formatted.length() + 1024).append(formatted);
+    stackTraceFolder.append(thrown, builder);
+    return builder.toString();
+  }
+
   @Override
   public void append(final LogEvent event) {
-    if (this.lineReader.isReading()) {
-      this.lineReader.callWidget(LineReader.CLEAR);
+    // Before formatting, which is most of the cost of a repeat
+    if (this.collapser != null && this.collapser.suppress(event, System.nanoTime())) {
+      ConsoleMetrics.collapsedEvents().increment();
+      return;
+    }
+    this.write(event);
+  }
+
+  private void write(final LogEvent event) {
+    final ConsoleAppendEvent appendEvent = new ConsoleAppendEvent();
+    appendEvent.begin();
+    final long start = System.nanoTime();
+
+    // Format before clearing the prompt, to keep the time it isn't shown as short as possible
+    final LogEvent rewritten = this.rewrite(event);
+    final String formatted;
+    try {
+      formatted = this.format(rewritten);
+    } catch (final RuntimeException ex) {
+      ConsoleMetrics.droppedEvents().increment();
+      throw ex;
     }
+    final long formattedAt = System.nanoTime();
 
-    this.lineReader.getTerminal().writer().print(this.getLayout().toSerializable(this.rewrite(event)).toString());
+    this.recentLines.add(rewritten.getLevel(), formatted);
+    final long writtenAt = this.print(formatted);
+    if (writtenAt == -1) {
+      return;
+    }
+    final long redrawnAt = System.nanoTime();
+
+    ConsoleMetrics.append().record(redrawnAt - start);
+    ConsoleMetrics.format().record(formattedAt - start);
+    ConsoleMetrics.redraw().record(redrawnAt - writtenAt);
+    ConsoleMetrics.appendedEvents().increment();
+    ConsoleMetrics.appendedCharacters().add(formatted.length());
+
+    appendEvent.end();
+    if (appendEvent.shouldCommit()) {
+      appendEvent.loggerName = rewritten.getLoggerName();
+      appendEvent.level = rewritten.getLevel().name();
+      appendEvent.formatDuration = formattedAt - start;
+      appendEvent.writeDuration = writtenAt - formattedAt;
+      appendEvent.redrawDuration = redrawnAt - writtenAt;
+      appendEvent.characters = formatted.length();
+      appendEvent.commit();
+    }
+  }
+
+  /**
+   * Prints already formatted output the way log output is printed, held while the scrollback pager is open.
+   *
+   * @param output output, ending with a line break
+   */
+  void printFormatted(final String output) {
+    this.print(output);
+  }
+
+  /**
+   * Prints output above the prompt, unless the scrollback pager is open.
+   *
+   * @param output output, ending with a line break
+   * @return when the output was written, before the prompt was redrawn, or {@code -1} if it was held
+   */
+  private long print(final String output) {
+    if (this.scrollback != null && this.scrollback.append(output)) {
+      // The pager is open, it prints held output when closed
+      return -1;
+    }
+    try {
+      final boolean reading = this.lineReader.isReading();
+      if (reading) {
+        this.lineReader.callWidget(LineReader.CLEAR);
+      }
+      this.lineReader.getTerminal().writer().print(output);
+      final long writtenAt = System.nanoTime();
+
+      if (reading) {
+        this.lineReader.callWidget(LineReader.REDRAW_LINE);
+        this.lineReader.callWidget(LineReader.REDISPLAY);
+        ConsoleMetrics.redraws().increment();
+      }
+      this.lineReader.getTerminal().writer().flush();
+      return writtenAt;
+    } finally {
+      if (this.scrollback != null) {
+        // The pager waits for this before it opens
+        this.scrollback.printed();
+      }
+    }
+  }
 
-    if (this.lineReader.isReading()) {
-      this.lineReader.callWidget(LineReader.REDRAW_LINE);
-      this.lineReader.callWidget(LineReader.REDISPLAY);
+  /**
+   * Layout and stack trace folder, swapped together on reload.
+   *
+   * @param layout           layout
+   * @param stackTraceFolder renders throwables instead of the layout, if not {@code null}
+   */
+  private record Rendering(PatternLayout layout, @Nullable StackTraceFolder stackTraceFolder) {
+    Rendering(final String logPattern, final @Nullable StackTraceFolder stackTraceFolder) {
+      this(
+        PatternLayout.newBuilder()
+          .withPattern(logPattern)
+          .withAlwaysWriteExceptions(stackTraceFolder == null)
+          .build(),
+        stackTraceFolder
+      );
     }
-    this.lineReader.getTerminal().writer().flush();
   }
 }
@@ -0,0 +1,60 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.server.MinecraftServer;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Source of the command tree and command source the console parses, highlights and completes against.
+ *
+ * @param <S> command source type
+ */
+@NullMarked
+public interface ConsoleCommands<S> {
+  static ConsoleCommands<CommandSourceStack> of(final MinecraftServer server) {
+    return new ConsoleCommands<>() {
+      @Override
+      public CommandDispatcher<CommandSourceStack> dispatcher() {
+        return server.getCommands().getDispatcher();
+      }
+
+      @Override
+      public CommandSourceStack source() {
+        return server.createCommandSourceStack();
+      }
+    };
+  }
+
+  /**
+   * Gets the current dispatcher, which changes when commands are reloaded.
+   *
+   * @return dispatcher
+   */
+  CommandDispatcher<S> dispatcher();
+
+  S source();
+}
@@ -24,6 +24,9 @@
 package xyz.jpenilla.betterfabricconsole.console;
 
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
@@ -33,15 +36,21 @@ import org.jline.reader.Highlighter;
 import org.jline.reader.LineReader;
 import org.jline.reader.LineReaderBuilder;
 import org.jline.reader.Parser;
+import org.jline.terminal.Terminal;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import xyz.jpenilla.betterfabricconsole.configuration.Config;
+import xyz.jpenilla.betterfabricconsole.util.PhaseTimer;
 
 @NullMarked
 public final class ConsoleSetup {
+  private static final int MAX_SCROLLBACK_MEGABYTES = 1024;
+
   private ConsoleSetup() {
   }
 
   private static LineReader buildLineReader(
+    final @Nullable Terminal terminal,
     final Completer completer,
     final Highlighter highlighter,
     final Parser parser
@@ -49,6 +58,7 @@ public final class ConsoleSetup {
     System.setProperty("org.jline.reader.support.parsedline", "true"); // to hide a warning message about the parser not supporting
 
     return LineReaderBuilder.builder()
+      .terminal(terminal)
       .appName("Dedicated Server")
       .variable(LineReader.HISTORY_FILE, Paths.get(".console_history"))
       .completer(completer)
@@ -61,23 +71,95 @@ public final class ConsoleSetup {
       .build();
   }
 
+  private static @Nullable Scrollback createScrollback(final Config config, final LineReader lineReader) {
+    final int megabytes = Math.min(config.scrollbackMegabytes(), MAX_SCROLLBACK_MEGABYTES);
+    if (megabytes <= 0) {
+      return null;
+    }
+    final Scrollback scrollback = new Scrollback(megabytes * 1024 * 1024);
+    return ScrollbackPager.install(lineReader, scrollback) ? scrollback : null;
+  }
+
+  static @Nullable StackTraceFolder createStackTraceFolder(final Config config) {
+    return config.stackTraces().fold()
+      ? new StackTraceFolder(config.stackTraces().collapseLibraryFrames(), config.stackTraces().libraryPackages())
+      : null;
+  }
+
+  private static ExecutorService createBackgroundInitializer(final LineReader lineReader) {
+    final ExecutorService background = Executors.newSingleThreadExecutor(task -> {
+      final Thread thread = new Thread(task, "Console initializer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Load the history file now, instead of in the first readLine
+    background.execute(() -> lineReader.getHistory().attach(lineReader));
+    return background;
+  }
+
   public static ConsoleState init(
     final Config config
+  ) {
+    return init(config, null);
+  }
+
+  /**
+   * Sets up the console on the given terminal, or the system terminal if {@code null}.
+   *
+   * @param config   config
+   * @param terminal terminal
+   * @return console state
+   */
+  public static ConsoleState init(
+    final Config config,
+    final @Nullable Terminal terminal
+  ) {
+    return init(config, terminal, new PhaseTimer());
+  }
+
+  /**
+   * Sets up the console on the given terminal, or the system terminal if {@code null}, timing each phase.
+   *
+   * <p>Only what the first log line needs is done here, console history is loaded in the background.</p>
+   *
+   * @param config   config
+   * @param terminal terminal
+   * @param timer    startup timer
+   * @return console state
+   */
+  public static ConsoleState init(
+    final Config config,
+    final @Nullable Terminal terminal,
+    final PhaseTimer timer
   ) {
     final DelegatingCompleter delegatingCompleter = new DelegatingCompleter();
-    final DelegatingHighlighter delegatingHighlighter = new DelegatingHighlighter();
+    final DelegatingHighlighter delegatingHighlighter = new DelegatingHighlighter(TimeUnit.MILLISECONDS.toNanos(config.highlightTimeBudgetMillis()));
     final DelegatingParser delegatingParser = new DelegatingParser();
     final LineReader lineReader = buildLineReader(
+      terminal,
       delegatingCompleter,
       delegatingHighlighter,
       delegatingParser
     );
+    final ExecutorService background = createBackgroundInitializer(lineReader);
+    timer.mark("line reader");
 
+    final RecentLines recentLines = new RecentLines(config.recentLines());
     final ConsoleAppender consoleAppender = new ConsoleAppender(
       lineReader,
       config.logPattern(),
-      null
+      null,
+      TimeUnit.MILLISECONDS.toNanos(config.collapseRepeatedMessagesMillis()),
+      createStackTraceFolder(config),
+      createScrollback(config, lineReader),
+      recentLines
     );
+    final LoggerRuleFilter loggerRules = new LoggerRuleFilter(config);
+    loggerRules.start();
+    consoleAppender.addFilter(loggerRules);
+    final OutputFilter outputFilter = new OutputFilter();
+    outputFilter.start();
+    consoleAppender.addFilter(outputFilter);
     consoleAppender.start();
 
     final Logger logger = (Logger) LogManager.getRootLogger();
@@ -88,7 +170,18 @@ public final class ConsoleSetup {
     loggerConfig.removeAppender("SysOut");
     loggerConfig.addAppender(consoleAppender, loggerConfig.getLevel(), null);
     loggerContext.updateLoggers();
+    timer.mark("appender");
 
-    return new ConsoleState(lineReader, delegatingCompleter, delegatingHighlighter, delegatingParser);
+    return new ConsoleState(
+      lineReader,
+      delegatingCompleter,
+      delegatingHighlighter,
+      delegatingParser,
+      outputFilter,
+      recentLines,
+      consoleAppender,
+      loggerRules,
+      background
+    );
   }
 }
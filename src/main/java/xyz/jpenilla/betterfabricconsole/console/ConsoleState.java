@@ -23,12 +23,39 @@
  */
 package xyz.jpenilla.betterfabricconsole.console;
 
+import java.util.concurrent.Executor;
 import org.jline.reader.LineReader;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
 
 public record ConsoleState(
   LineReader lineReader,
   DelegatingCompleter completer,
   DelegatingHighlighter highlighter,
-  DelegatingParser parser
+  DelegatingParser parser,
+  OutputFilter outputFilter,
+  RecentLines recentLines,
+  ConsoleAppender appender,
+  LoggerRuleFilter loggerRules,
+  Executor background
 ) {
+  /**
+   * Applies the log pattern, stack trace and logger rule settings of a reloaded config. Everything is
+   * built on the calling thread and then swapped in, no log events are dropped.
+   *
+   * @param config reloaded config
+   */
+  public void reconfigure(final Config config) {
+    this.appender.reconfigure(config.logPattern(), ConsoleSetup.createStackTraceFolder(config));
+    this.loggerRules.update(config);
+  }
+
+  /**
+   * Prints already formatted output above the prompt, the same way as log output. It is held while the
+   * scrollback pager is open, so this never waits for the pager to close.
+   *
+   * @param output output, ending with a line break
+   */
+  public void print(final String output) {
+    this.appender.printFormatted(output);
+  }
 }
@@ -35,15 +35,18 @@ import org.jline.reader.LineReader;
 import org.jline.reader.UserInterruptException;
 import org.jspecify.annotations.NullMarked;
 import xyz.jpenilla.betterfabricconsole.BetterFabricConsole;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.CommandSubmitEvent;
 import xyz.jpenilla.betterfabricconsole.util.TerminalModeDetection;
 
 @NullMarked
 public final class ConsoleThread extends Thread {
   private static final String TERMINAL_PROMPT = "> ";
   private static final String STOP_COMMAND = "stop";
+  private static final int MAX_RECORDED_COMMAND_LENGTH = 256;
 
   private final DedicatedServer server;
   private final LineReader lineReader;
+  private final EmergencyCommands emergencyCommands;
 
   public ConsoleThread(
     final DedicatedServer server,
@@ -52,6 +55,7 @@ public final class ConsoleThread extends Thread {
     super("Console thread");
     this.server = server;
     this.lineReader = lineReader;
+    this.emergencyCommands = new EmergencyCommands(server);
   }
 
   @Override
@@ -71,12 +75,8 @@ public final class ConsoleThread extends Thread {
   private void acceptTerminalInput() {
     while (isRunning(this.server)) {
       try {
-        final String input = this.lineReader.readLine(TERMINAL_PROMPT).trim();
-        if (input.isEmpty()) {
-          continue;
-        }
-        this.server.handleConsoleInput(input, this.server.createCommandSourceStack());
-        if (input.equals(STOP_COMMAND)) {
+        final String input = this.lineReader.readLine(TERMINAL_PROMPT);
+        if (this.submitLines(input)) {
           break;
         }
       } catch (final EndOfFileException | UserInterruptException ex) {
@@ -86,15 +86,48 @@ public final class ConsoleThread extends Thread {
     }
   }
 
+  /**
+   * Submits each non-blank line of the input as a separate command. Input
+   * only contains multiple lines when a block of commands was pasted.
+   *
+   * @param input input
+   * @return whether the stop command was submitted
+   */
+  private boolean submitLines(final String input) {
+    for (final String line : (Iterable<String>) input.lines()::iterator) {
+      final String command = line.trim();
+      if (command.isEmpty() || this.emergencyCommands.handle(command)) {
+        continue;
+      }
+      this.submit(command);
+      if (command.equals(STOP_COMMAND)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void submit(final String command) {
+    final CommandSubmitEvent event = new CommandSubmitEvent();
+    event.begin();
+    this.server.handleConsoleInput(command, this.server.createCommandSourceStack());
+    event.end();
+    if (event.shouldCommit()) {
+      event.command = command.length() > MAX_RECORDED_COMMAND_LENGTH ? command.substring(0, MAX_RECORDED_COMMAND_LENGTH) : command;
+      event.commandLength = command.length();
+      event.commit();
+    }
+  }
+
   private void acceptInput(final InputStream in) {
     try (final BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
       String input;
       while (isRunning(this.server) && (input = reader.readLine()) != null) {
         try {
-          if (input.isEmpty()) {
+          if (input.isEmpty() || this.emergencyCommands.handle(input.trim())) {
             continue;
           }
-          this.server.handleConsoleInput(input, this.server.createCommandSourceStack());
+          this.submit(input);
           if (input.equals(STOP_COMMAND)) {
             break;
           }
@@ -30,6 +30,7 @@ import org.jline.reader.LineReader;
 import org.jline.reader.ParsedLine;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
 
 @NullMarked
 public final class DelegatingCompleter implements Completer {
@@ -38,7 +39,12 @@ public final class DelegatingCompleter implements Completer {
   @Override
   public void complete(final LineReader reader, final ParsedLine line, final List<Candidate> candidates) {
     if (this.delegate != null) {
-      this.delegate.complete(reader, line, candidates);
+      final long start = System.nanoTime();
+      try {
+        this.delegate.complete(reader, line, candidates);
+      } finally {
+        ConsoleMetrics.complete().record(System.nanoTime() - start);
+      }
     }
   }
 
@@ -23,6 +23,7 @@
  */
 package xyz.jpenilla.betterfabricconsole.console;
 
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import org.jline.reader.Highlighter;
 import org.jline.reader.LineReader;
@@ -31,36 +32,113 @@ import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
 
 @NullMarked
 public final class DelegatingHighlighter implements Highlighter {
-  private @Nullable Highlighter delegate;
+  private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private final long budgetNanos;
+  // Replaced from other threads on config reload, together with the state kept for it
+  private volatile @Nullable Delegate delegate;
+
+  /**
+   * Creates a new delegating highlighter.
+   *
+   * @param budgetNanos time a single highlight may take before highlighting is paused, {@code 0} to disable
+   */
+  public DelegatingHighlighter(final long budgetNanos) {
+    this.budgetNanos = budgetNanos;
+  }
 
   @Override
   public AttributedString highlight(final LineReader reader, final String buffer) {
-    if (this.delegate != null) {
-      return this.delegate.highlight(reader, buffer);
+    final @Nullable Delegate delegate = this.delegate;
+    if (delegate == null) {
+      final AttributedStringBuilder builder = new AttributedStringBuilder();
+      builder.append(buffer, AttributedStyle.DEFAULT.foreground(AttributedStyle.RED));
+      return builder.toAttributedString();
+    }
+
+    final long start = System.nanoTime();
+    if (delegate.backoffUntil - start > 0) {
+      return fallback(delegate.lastGood, buffer);
+    }
+    final AttributedString highlighted = delegate.highlighter.highlight(reader, buffer);
+    final long elapsed = System.nanoTime() - start;
+    ConsoleMetrics.highlight().record(elapsed);
+
+    if (this.budgetNanos > 0 && elapsed > this.budgetNanos) {
+      // Over budget (usually a slow argument parser), pause highlighting for twice as long as this took,
+      // doubling the pause for every consecutive slow highlight
+      delegate.backoffNanos = delegate.backoffNanos == 0 ? elapsed * 2 : Math.min(delegate.backoffNanos * 2, MAX_BACKOFF_NANOS);
+      delegate.backoffUntil = System.nanoTime() + delegate.backoffNanos;
+    } else {
+      delegate.backoffNanos = 0;
+    }
+    delegate.lastGood = highlighted;
+    return highlighted;
+  }
+
+  /**
+   * Renders the buffer using the last successful highlight where it still
+   * matches the buffer, and without highlighting for the rest.
+   *
+   * @param lastGood last successful highlight
+   * @param buffer   buffer
+   * @return fallback highlight
+   */
+  private static AttributedString fallback(final @Nullable AttributedString lastGood, final String buffer) {
+    if (lastGood == null) {
+      return new AttributedString(buffer);
+    }
+    final int matching = Math.min(lastGood.length(), buffer.length());
+    for (int i = 0; i < matching; i++) {
+      if (lastGood.charAt(i) != buffer.charAt(i)) {
+        return new AttributedString(buffer);
+      }
+    }
+    if (matching == buffer.length()) {
+      return lastGood.subSequence(0, matching);
     }
-    final AttributedStringBuilder builder = new AttributedStringBuilder();
-    builder.append(buffer, AttributedStyle.DEFAULT.foreground(AttributedStyle.RED));
+    final AttributedStringBuilder builder = new AttributedStringBuilder(buffer.length());
+    builder.append(lastGood);
+    builder.append(buffer.substring(matching), AttributedStyle.DEFAULT);
     return builder.toAttributedString();
   }
 
   @Override
   public void setErrorPattern(final Pattern errorPattern) {
-    if (this.delegate != null) {
-      this.delegate.setErrorPattern(errorPattern);
+    final @Nullable Delegate delegate = this.delegate;
+    if (delegate != null) {
+      delegate.highlighter.setErrorPattern(errorPattern);
     }
   }
 
   @Override
   public void setErrorIndex(final int errorIndex) {
-    if (this.delegate != null) {
-      this.delegate.setErrorIndex(errorIndex);
+    final @Nullable Delegate delegate = this.delegate;
+    if (delegate != null) {
+      delegate.highlighter.setErrorIndex(errorIndex);
     }
   }
 
   public void delegateTo(final Highlighter highlighter) {
-    this.delegate = highlighter;
+    this.delegate = new Delegate(highlighter);
+  }
+
+  /**
+   * A delegate and the backoff state of highlighting with it. Only the console thread touches the state,
+   * a new delegate starts over with fresh state instead of resetting it from another thread.
+   */
+  private static final class Delegate {
+    final Highlighter highlighter;
+    @Nullable AttributedString lastGood;
+    long backoffNanos;
+    long backoffUntil;
+
+    Delegate(final Highlighter highlighter) {
+      this.highlighter = highlighter;
+    }
   }
 }
@@ -28,6 +28,7 @@ import org.jline.reader.Parser;
 import org.jline.reader.SyntaxError;
 import org.jline.reader.impl.DefaultParser;
 import org.jspecify.annotations.NullMarked;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
 
 @NullMarked
 public final class DelegatingParser implements Parser {
@@ -39,6 +40,11 @@ public final class DelegatingParser implements Parser {
 
   @Override
   public ParsedLine parse(final String line, final int cursor, final ParseContext context) throws SyntaxError {
-    return this.delegate.parse(line, cursor, context);
+    final long start = System.nanoTime();
+    try {
+      return this.delegate.parse(line, cursor, context);
+    } finally {
+      ConsoleMetrics.parse().record(System.nanoTime() - start);
+    }
   }
 }
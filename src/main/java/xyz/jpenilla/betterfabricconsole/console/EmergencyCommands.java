@@ -0,0 +1,235 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.mojang.logging.LogUtils;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import net.minecraft.server.MinecraftServer;
+import org.apache.logging.log4j.LogManager;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Diagnostics that run on the console thread, for when the server thread is stuck and can't run commands.
+ *
+ * <p>Entered with a leading {@code !}, which no Brigadier command starts with. Output is logged, so it
+ * also ends up in the log file.</p>
+ */
+@NullMarked
+final class EmergencyCommands {
+  static final String PREFIX = "!";
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final long FORCED_STOP_TIMEOUT_SECONDS = 30;
+
+  private final MinecraftServer server;
+  private final Map<String, Consumer<StringBuilder>> commands = Map.of(
+    "help", this::help,
+    "server-thread", this::serverThread,
+    "threads", this::threads,
+    "heap", EmergencyCommands::heap,
+    "gc", EmergencyCommands::gc
+  );
+
+  EmergencyCommands(final MinecraftServer server) {
+    this.server = server;
+  }
+
+  /**
+   * Runs the input if it is an emergency command.
+   *
+   * @param input trimmed console input
+   * @return whether the input was an emergency command
+   */
+  boolean handle(final String input) {
+    if (!input.startsWith(PREFIX)) {
+      return false;
+    }
+    final String name = input.substring(PREFIX.length()).trim().toLowerCase(Locale.ROOT);
+    if (name.equals("dump-and-stop")) {
+      this.dumpAndStop();
+      return true;
+    }
+    final StringBuilder out = new StringBuilder();
+    final @Nullable Consumer<StringBuilder> command = this.commands.get(name);
+    if (command == null) {
+      out.append("Unknown console command '").append(input).append("'. ");
+      this.help(out);
+    } else {
+      command.accept(out);
+    }
+    LOGGER.info("{}", out);
+    return true;
+  }
+
+  private void help(final StringBuilder out) {
+    out.append("Console commands, these run even when the server thread is stuck:\n")
+      .append("  !server-thread  stack of the server thread\n")
+      .append("  !threads        all thread stacks with lock owners, and deadlocks\n")
+      .append("  !heap           heap and memory pool usage\n")
+      .append("  !gc             garbage collector counts and times\n")
+      .append("  !dump-and-stop  dump threads, then stop the server, halting if it doesn't stop within ")
+      .append(FORCED_STOP_TIMEOUT_SECONDS).append("s");
+  }
+
+  private void serverThread(final StringBuilder out) {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    final Thread serverThread = this.server.getRunningThread();
+    final ThreadInfo @Nullable [] info = threads.getThreadInfo(
+      new long[]{serverThread.threadId()},
+      threads.isObjectMonitorUsageSupported(),
+      threads.isSynchronizerUsageSupported()
+    );
+    if (info.length == 0 || info[0] == null) {
+      out.append("Server thread is not alive");
+      return;
+    }
+    out.append("Server thread dump:\n");
+    appendThread(out, info[0]);
+  }
+
+  private void threads(final StringBuilder out) {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    final ThreadInfo[] infos = threads.dumpAllThreads(threads.isObjectMonitorUsageSupported(), threads.isSynchronizerUsageSupported());
+    out.append("Thread dump, ").append(infos.length).append(" threads:\n");
+    final long @Nullable [] deadlocked = threads.isSynchronizerUsageSupported()
+      ? threads.findDeadlockedThreads()
+      : threads.findMonitorDeadlockedThreads();
+    if (deadlocked != null) {
+      out.append("DEADLOCK between ").append(deadlocked.length).append(" threads:");
+      for (final long id : deadlocked) {
+        out.append(" #").append(id);
+      }
+      out.append('\n');
+    }
+    for (final ThreadInfo info : infos) {
+      appendThread(out, info);
+    }
+  }
+
+  private static void appendThread(final StringBuilder out, final ThreadInfo info) {
+    out.append('"').append(info.getThreadName()).append("\" #").append(info.getThreadId())
+      .append(info.isDaemon() ? " daemon" : "")
+      .append(" prio=").append(info.getPriority())
+      .append(' ').append(info.getThreadState());
+    final @Nullable String lockName = info.getLockName();
+    if (lockName != null) {
+      out.append(" on ").append(lockName);
+      if (info.getLockOwnerName() != null) {
+        out.append(" owned by \"").append(info.getLockOwnerName()).append("\" #").append(info.getLockOwnerId());
+      }
+    }
+    out.append('\n');
+
+    final StackTraceElement[] trace = info.getStackTrace();
+    final MonitorInfo[] monitors = info.getLockedMonitors();
+    for (int depth = 0; depth < trace.length; depth++) {
+      out.append("\tat ").append(trace[depth]).append('\n');
+      for (final MonitorInfo monitor : monitors) {
+        if (monitor.getLockedStackDepth() == depth) {
+          out.append("\t- locked ").append(monitor).append('\n');
+        }
+      }
+    }
+    final LockInfo[] synchronizers = info.getLockedSynchronizers();
+    if (synchronizers.length != 0) {
+      out.append("\tLocked synchronizers:\n");
+      for (final LockInfo synchronizer : synchronizers) {
+        out.append("\t- ").append(synchronizer).append('\n');
+      }
+    }
+    out.append('\n');
+  }
+
+  private static void heap(final StringBuilder out) {
+    out.append("Memory:\n");
+    appendUsage(out, "heap", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage());
+    appendUsage(out, "non-heap", ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage());
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      final @Nullable MemoryUsage usage = pool.getUsage();
+      if (usage != null) {
+        appendUsage(out, pool.getName() + " (" + pool.getType().toString().toLowerCase(Locale.ROOT) + ")", usage);
+      }
+    }
+    out.setLength(out.length() - 1);
+  }
+
+  private static void appendUsage(final StringBuilder out, final String name, final MemoryUsage usage) {
+    out.append("  ").append(name).append(": ").append(usage.getUsed() >> 20).append(" MB used, ")
+      .append(usage.getCommitted() >> 20).append(" MB committed");
+    if (usage.getMax() > 0) {
+      out.append(", ").append(usage.getMax() >> 20).append(" MB max");
+    }
+    out.append('\n');
+  }
+
+  private static void gc(final StringBuilder out) {
+    final long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+    out.append("Garbage collectors, over ").append(Duration.ofMillis(uptime).toSeconds()).append("s uptime:\n");
+    for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      final long count = gc.getCollectionCount();
+      final long time = gc.getCollectionTime();
+      out.append("  ").append(gc.getName()).append(": ").append(count).append(" collections, ").append(time).append(" ms");
+      if (count > 0) {
+        out.append(String.format(Locale.ROOT, " (avg %.1f ms, %.2f%% of uptime)", (double) time / count, 100.0D * time / Math.max(1, uptime)));
+      }
+      out.append('\n');
+    }
+    out.setLength(out.length() - 1);
+  }
+
+  private void dumpAndStop() {
+    final StringBuilder out = new StringBuilder();
+    this.threads(out);
+    LOGGER.error("Dump before forced stop requested from the console\n{}", out);
+
+    // A stuck server thread won't see this, which is what the timeout is for
+    this.server.halt(false);
+    final Thread serverThread = this.server.getRunningThread();
+    try {
+      serverThread.join(TimeUnit.SECONDS.toMillis(FORCED_STOP_TIMEOUT_SECONDS));
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    if (serverThread.isAlive()) {
+      LOGGER.error("Server thread did not stop within {}s, halting", FORCED_STOP_TIMEOUT_SECONDS);
+      // Flush file appenders
+      LogManager.shutdown();
+      // Shutdown hooks would wait for the stuck server thread
+      Runtime.getRuntime().halt(1);
+    }
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.ParseResults;
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.context.CommandContextBuilder;
+import com.mojang.brigadier.context.ParsedArgument;
+import com.mojang.brigadier.context.ParsedCommandNode;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.logging.LogUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+
+/**
+ * Brigadier parser that remembers the previous parse and, when the new input
+ * shares a prefix with the previous input, resumes parsing from the last node
+ * boundary inside that prefix instead of starting over from the root.
+ *
+ * <p>Branch choices made before the resume point are kept as-is, so in rare
+ * cases the result can differ from a full {@link CommandDispatcher#parse}. This
+ * makes it suitable for highlighting and suggestions, not for execution.</p>
+ *
+ * <p>Resuming relies on a copy of Brigadier's private parse loop. To catch it drifting from the
+ * Brigadier in use, the first resumes and then every {@value #VERIFY_INTERVAL}th one are compared
+ * with a full parse. On the first disagreement resuming is turned off and full parses are used from
+ * then on.</p>
+ *
+ * <p>Not thread safe, callers are expected to hold the line reader lock.</p>
+ *
+ * @param <S> command source type
+ */
+@NullMarked
+final class IncrementalCommandParser<S> {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final int ALWAYS_VERIFY_FIRST = 32;
+  private static final int VERIFY_INTERVAL = 64;
+
+  private @Nullable Snapshot<S> last;
+  private long resumes;
+  private boolean resumeDisabled;
+
+  ParseResults<S> parse(final CommandDispatcher<S> dispatcher, final StringReader reader, final Supplier<S> source) {
+    final String input = reader.getString();
+    final int start = reader.getCursor();
+    final @Nullable Snapshot<S> last = this.last;
+    if (last != null && last.dispatcher() == dispatcher && last.start() == start) {
+      if (last.input().equals(input)) {
+        ConsoleMetrics.parseCacheHits().increment();
+        return last.results();
+      }
+      final @Nullable ParseResults<S> resumed = this.resumeDisabled
+        ? null
+        : resume(dispatcher, last.results(), input, commonPrefixLength(last.input(), input));
+      if (resumed != null && this.verified(dispatcher, reader, source, resumed)) {
+        ConsoleMetrics.parseResumes().increment();
+        this.last = new Snapshot<>(dispatcher, input, start, resumed);
+        return resumed;
+      }
+    }
+
+    final ParseResults<S> results = dispatcher.parse(reader, source.get());
+    this.last = new Snapshot<>(dispatcher, input, start, results);
+    return results;
+  }
+
+  private boolean verified(
+    final CommandDispatcher<S> dispatcher,
+    final StringReader reader,
+    final Supplier<S> source,
+    final ParseResults<S> resumed
+  ) {
+    final long resumes = this.resumes++;
+    if (resumes >= ALWAYS_VERIFY_FIRST && resumes % VERIFY_INTERVAL != 0) {
+      return true;
+    }
+    final ParseResults<S> full = dispatcher.parse(new StringReader(reader), source.get());
+    if (sameResult(resumed, full)) {
+      return true;
+    }
+    this.resumeDisabled = true;
+    LOGGER.warn("Incremental command parsing disagreed with Brigadier for '{}', using full parses from now on", reader.getString());
+    return false;
+  }
+
+  /**
+   * Compares the parts of two parse results that highlighting and suggestions use.
+   */
+  private static <S> boolean sameResult(final ParseResults<S> a, final ParseResults<S> b) {
+    if (a.getReader().getCursor() != b.getReader().getCursor() || !a.getExceptions().keySet().equals(b.getExceptions().keySet())) {
+      return false;
+    }
+    @Nullable CommandContextBuilder<S> contextA = a.getContext();
+    @Nullable CommandContextBuilder<S> contextB = b.getContext();
+    while (contextA != null && contextB != null) {
+      final List<ParsedCommandNode<S>> nodesA = contextA.getNodes();
+      final List<ParsedCommandNode<S>> nodesB = contextB.getNodes();
+      if (nodesA.size() != nodesB.size() || !contextA.getArguments().keySet().equals(contextB.getArguments().keySet())) {
+        return false;
+      }
+      for (int i = 0; i < nodesA.size(); i++) {
+        if (nodesA.get(i).getNode() != nodesB.get(i).getNode() || !nodesA.get(i).getRange().equals(nodesB.get(i).getRange())) {
+          return false;
+        }
+      }
+      contextA = contextA.getChild();
+      contextB = contextB.getChild();
+    }
+    return contextA == null && contextB == null;
+  }
+
+  private static int commonPrefixLength(final String a, final String b) {
+    final int mismatch = Math.min(a.length(), b.length());
+    for (int i = 0; i < mismatch; i++) {
+      if (a.charAt(i) != b.charAt(i)) {
+        return i;
+      }
+    }
+    return mismatch;
+  }
+
+  private static <S> @Nullable ParseResults<S> resume(
+    final CommandDispatcher<S> dispatcher,
+    final ParseResults<S> previous,
+    final String input,
+    final int unchangedPrefix
+  ) {
+    // Flatten the context chain, a new child context is started for every redirect
+    final List<CommandContextBuilder<S>> levels = new ArrayList<>();
+    for (CommandContextBuilder<S> context = previous.getContext(); context != null; context = context.getChild()) {
+      levels.add(context);
+    }
+
+    // Find the last node that ends before the first changed character, the separator after it is unchanged too
+    int level = -1;
+    int nodeIndex = -1;
+    for (int i = 0; i < levels.size(); i++) {
+      final List<ParsedCommandNode<S>> nodes = levels.get(i).getNodes();
+      for (int n = 0; n < nodes.size(); n++) {
+        if (nodes.get(n).getRange().getEnd() < unchangedPrefix) {
+          level = i;
+          nodeIndex = n;
+        }
+      }
+    }
+    if (level == -1) {
+      return null;
+    }
+
+    final CommandContextBuilder<S> resumeContext = truncate(dispatcher, levels.get(level), nodeIndex);
+    final ParsedCommandNode<S> resumeNode = resumeContext.getNodes().get(nodeIndex);
+    final StringReader reader = new StringReader(input);
+    reader.setCursor(resumeNode.getRange().getEnd());
+
+    ParseResults<S> results;
+    final @Nullable CommandNode<S> redirect = resumeNode.getNode().getRedirect();
+    if (reader.canRead(redirect == null ? 2 : 1)) {
+      reader.skip();
+      if (redirect != null) {
+        final CommandContextBuilder<S> childContext = new CommandContextBuilder<>(dispatcher, resumeContext.getSource(), redirect, reader.getCursor());
+        final ParseResults<S> parse = parseNodes(dispatcher, redirect, reader, childContext);
+        resumeContext.withChild(parse.getContext());
+        results = new ParseResults<>(resumeContext, parse.getReader(), parse.getExceptions());
+      } else {
+        results = parseNodes(dispatcher, resumeNode.getNode(), reader, resumeContext);
+      }
+    } else {
+      results = new ParseResults<>(resumeContext, reader, Collections.emptyMap());
+    }
+
+    // Re-attach the resumed context to the (unchanged) contexts it was redirected from
+    for (int i = level - 1; i >= 0; i--) {
+      final CommandContextBuilder<S> parent = truncate(dispatcher, levels.get(i), levels.get(i).getNodes().size() - 1);
+      parent.withChild(results.getContext());
+      results = new ParseResults<>(parent, results.getReader(), results.getExceptions());
+    }
+    return results;
+  }
+
+  /**
+   * Rebuilds {@code context} with only its nodes up to and including {@code lastNode}.
+   */
+  private static <S> CommandContextBuilder<S> truncate(
+    final CommandDispatcher<S> dispatcher,
+    final CommandContextBuilder<S> context,
+    final int lastNode
+  ) {
+    final CommandContextBuilder<S> truncated = new CommandContextBuilder<>(dispatcher, context.getSource(), context.getRootNode(), context.getRange().getStart());
+    final List<ParsedCommandNode<S>> nodes = context.getNodes();
+    for (int i = 0; i <= lastNode; i++) {
+      truncated.withNode(nodes.get(i).getNode(), nodes.get(i).getRange());
+    }
+    final int end = nodes.get(lastNode).getRange().getEnd();
+    for (final Map.Entry<String, ParsedArgument<S, ?>> argument : context.getArguments().entrySet()) {
+      if (argument.getValue().getRange().getEnd() <= end) {
+        truncated.withArgument(argument.getKey(), argument.getValue());
+      }
+    }
+    truncated.withCommand(nodes.get(lastNode).getNode().getCommand());
+    return truncated;
+  }
+
+  /**
+   * Mirrors the private {@code CommandDispatcher#parseNodes}, which can't be resumed from outside.
+   *
+   * <p>Copied from Brigadier 1.3.10. Compare with the new version when Brigadier is updated, mismatches
+   * are only caught at runtime by the sampled verification in {@link #parse}.</p>
+   */
+  private static <S> ParseResults<S> parseNodes(
+    final CommandDispatcher<S> dispatcher,
+    final CommandNode<S> node,
+    final StringReader originalReader,
+    final CommandContextBuilder<S> contextSoFar
+  ) {
+    final S source = contextSoFar.getSource();
+    @Nullable Map<CommandNode<S>, CommandSyntaxException> errors = null;
+    @Nullable List<ParseResults<S>> potentials = null;
+    final int cursor = originalReader.getCursor();
+
+    for (final CommandNode<S> child : node.getRelevantNodes(originalReader)) {
+      if (!child.canUse(source)) {
+        continue;
+      }
+      final CommandContextBuilder<S> context = contextSoFar.copy();
+      final StringReader reader = new StringReader(originalReader);
+      try {
+        try {
+          child.parse(reader, context);
+        } catch (final RuntimeException ex) {
+          throw CommandSyntaxException.BUILT_IN_EXCEPTIONS.dispatcherParseException().createWithContext(reader, ex.getMessage());
+        }
+        if (reader.canRead() && reader.peek() != CommandDispatcher.ARGUMENT_SEPARATOR_CHAR) {
+          throw CommandSyntaxException.BUILT_IN_EXCEPTIONS.dispatcherExpectedArgumentSeparator().createWithContext(reader);
+        }
+      } catch (final CommandSyntaxException ex) {
+        if (errors == null) {
+          errors = new LinkedHashMap<>();
+        }
+        errors.put(child, ex);
+        reader.setCursor(cursor);
+        continue;
+      }
+
+      context.withCommand(child.getCommand());
+      if (reader.canRead(child.getRedirect() == null ? 2 : 1)) {
+        reader.skip();
+        if (child.getRedirect() != null) {
+          final CommandContextBuilder<S> childContext = new CommandContextBuilder<>(dispatcher, source, child.getRedirect(), reader.getCursor());
+          final ParseResults<S> parse = parseNodes(dispatcher, child.getRedirect(), reader, childContext);
+          context.withChild(parse.getContext());
+          return new ParseResults<>(context, parse.getReader(), parse.getExceptions());
+        }
+        if (potentials == null) {
+          potentials = new ArrayList<>(1);
+        }
+        potentials.add(parseNodes(dispatcher, child, reader, context));
+      } else {
+        if (potentials == null) {
+          potentials = new ArrayList<>(1);
+        }
+        potentials.add(new ParseResults<>(context, reader, Collections.emptyMap()));
+      }
+    }
+
+    if (potentials != null) {
+      if (potentials.size() > 1) {
+        potentials.sort((a, b) -> {
+          if (!a.getReader().canRead() && b.getReader().canRead()) {
+            return -1;
+          }
+          if (a.getReader().canRead() && !b.getReader().canRead()) {
+            return 1;
+          }
+          if (a.getExceptions().isEmpty() && !b.getExceptions().isEmpty()) {
+            return -1;
+          }
+          if (!a.getExceptions().isEmpty() && b.getExceptions().isEmpty()) {
+            return 1;
+          }
+          return 0;
+        });
+      }
+      return potentials.getFirst();
+    }
+
+    return new ParseResults<>(contextSoFar, originalReader, errors == null ? Collections.emptyMap() : errors);
+  }
+
+  private record Snapshot<S>(CommandDispatcher<S> dispatcher, String input, int start, ParseResults<S> results) {
+  }
+}
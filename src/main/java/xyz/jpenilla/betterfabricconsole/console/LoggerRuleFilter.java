@@ -0,0 +1,162 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.mojang.logging.LogUtils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+import xyz.jpenilla.betterfabricconsole.util.StringPool;
+import xyz.jpenilla.betterfabricconsole.util.TokenBucket;
+
+/**
+ * Console-only levels and rate limits for loggers and their children.
+ *
+ * <p>A logger's rule is resolved once, by walking up its name to the closest configured ancestor, and cached
+ * by logger name. After that each event costs a map lookup. Reloaded rules are swapped in together with a new
+ * cache, so an event sees either the old or the new rules.</p>
+ */
+@NullMarked
+final class LoggerRuleFilter extends AbstractFilter {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  // Loggers are normally static, this only guards against loggers named after something unbounded
+  private static final int MAX_CACHED_LOGGERS = 8192;
+  private static final Rule NO_RULE = new Rule(Level.ALL, null);
+
+  private final StringPool names = new StringPool(new ConcurrentHashMap<>());
+  private volatile Rules rules;
+
+  /**
+   * Creates a filter with the configured rules.
+   *
+   * @param config config
+   */
+  LoggerRuleFilter(final Config config) {
+    super(Result.NEUTRAL, Result.DENY);
+    this.rules = new Rules(compile(config), new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Replaces the rules with newly configured ones, with fresh rate limits.
+   *
+   * @param config config
+   */
+  void update(final Config config) {
+    this.rules = new Rules(compile(config), new ConcurrentHashMap<>());
+  }
+
+  private static Map<String, Rule> compile(final Config config) {
+    final Map<String, Rule> rules = new HashMap<>();
+    for (final Map.Entry<String, Config.ConsoleLoggerRule> entry : config.consoleLoggerRules().entrySet()) {
+      final Config.ConsoleLoggerRule configured = entry.getValue();
+      Level level = Level.ALL;
+      if (configured.level() != null) {
+        level = Level.toLevel(configured.level(), null);
+        if (level == null) {
+          LOGGER.warn("Unknown level '{}' in console logger rule for '{}', ignoring it", configured.level(), entry.getKey());
+          level = Level.ALL;
+        }
+      }
+      final @Nullable TokenBucket bucket = configured.rateLimit() > 0
+        ? new TokenBucket(configured.rateLimit(), Math.max(1, configured.burst()))
+        : null;
+      rules.put(entry.getKey(), new Rule(level, bucket));
+    }
+    return Map.copyOf(rules);
+  }
+
+  @Override
+  public Result filter(final LogEvent event) {
+    final Rules rules = this.rules;
+    if (rules.configured().isEmpty()) {
+      return this.onMatch;
+    }
+    final @Nullable String loggerName = event.getLoggerName();
+    final Rule rule = this.rule(rules, loggerName == null ? "" : loggerName);
+    if (rule == NO_RULE) {
+      return this.onMatch;
+    }
+    if (!event.getLevel().isMoreSpecificThan(rule.level)) {
+      return this.onMismatch;
+    }
+    if (rule.bucket != null && !rule.bucket.tryAcquire()) {
+      ConsoleMetrics.rateLimitedEvents().increment();
+      return this.onMismatch;
+    }
+    return this.onMatch;
+  }
+
+  private Rule rule(final Rules rules, final String loggerName) {
+    final @Nullable Rule cached = rules.cache().get(loggerName);
+    if (cached != null) {
+      return cached;
+    }
+    final Rule rule = resolve(rules.configured(), loggerName);
+    if (rules.cache().size() < MAX_CACHED_LOGGERS) {
+      rules.cache().put(this.names.string(loggerName), rule);
+    }
+    return rule;
+  }
+
+  private static Rule resolve(final Map<String, Rule> configured, final String loggerName) {
+    String name = loggerName;
+    while (true) {
+      final @Nullable Rule rule = configured.get(name);
+      if (rule != null) {
+        return rule;
+      }
+      final int dot = name.lastIndexOf('.');
+      if (dot == -1) {
+        return NO_RULE;
+      }
+      name = name.substring(0, dot);
+    }
+  }
+
+  /**
+   * A compiled rule. Loggers sharing a configured ancestor share its rule, and so its rate limit.
+   *
+   * @param level  minimum level
+   * @param bucket rate limit
+   */
+  private record Rule(Level level, @Nullable TokenBucket bucket) {
+  }
+
+  /**
+   * Configured rules with the cache of rules resolved from them.
+   *
+   * @param configured rules by logger name
+   * @param cache      resolved rules by logger name
+   */
+  private record Rules(Map<String, Rule> configured, Map<String, Rule> cache) {
+  }
+}
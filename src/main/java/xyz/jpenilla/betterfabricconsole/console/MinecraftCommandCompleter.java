@@ -23,6 +23,7 @@
  */
 package xyz.jpenilla.betterfabricconsole.console;
 
+import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.Message;
 import com.mojang.brigadier.ParseResults;
 import com.mojang.brigadier.StringReader;
@@ -33,25 +34,42 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import net.kyori.adventure.platform.modcommon.MinecraftServerAudiences;
 import net.kyori.adventure.text.serializer.ansi.ANSIComponentSerializer;
-import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.ComponentUtils;
-import net.minecraft.server.MinecraftServer;
 import org.jline.reader.Candidate;
 import org.jline.reader.Completer;
 import org.jline.reader.LineReader;
 import org.jline.reader.ParsedLine;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.CommandCompleteEvent;
 import xyz.jpenilla.betterfabricconsole.util.Util;
 
 @NullMarked
-public record MinecraftCommandCompleter(MinecraftServer server, MinecraftServerAudiences audiences) implements Completer {
+public record MinecraftCommandCompleter<S>(
+  ConsoleCommands<S> commands,
+  @Nullable MinecraftServerAudiences audiences
+) implements Completer {
   @Override
   public void complete(final LineReader reader, final ParsedLine line, final List<Candidate> candidates) {
+    final CommandCompleteEvent event = new CommandCompleteEvent();
+    event.begin();
+    final int initialCandidates = candidates.size();
+    this.completeLine(line, candidates);
+    event.end();
+    if (event.shouldCommit()) {
+      event.bufferLength = line.line().length();
+      event.cursor = line.cursor();
+      event.candidates = candidates.size() - initialCandidates;
+      event.commit();
+    }
+  }
+
+  private void completeLine(final ParsedLine line, final List<Candidate> candidates) {
     final StringReader stringReader = Util.prepareStringReader(line.line());
-    final ParseResults<CommandSourceStack> results = this.server.getCommands().getDispatcher().parse(stringReader, this.server.createCommandSourceStack());
-    final CompletableFuture<Suggestions> suggestionsFuture = this.server.getCommands().getDispatcher().getCompletionSuggestions(results, line.cursor());
+    final CommandDispatcher<S> dispatcher = this.commands.dispatcher();
+    final ParseResults<S> results = dispatcher.parse(stringReader, this.commands.source());
+    final CompletableFuture<Suggestions> suggestionsFuture = dispatcher.getCompletionSuggestions(results, line.cursor());
     final Suggestions suggestions = suggestionsFuture.join();
 
     final ParseContext parseContext = new ParseContext(line.line(), results.getContext().findSuggestionContext(line.cursor()).startPos);
@@ -74,11 +92,7 @@ public record MinecraftCommandCompleter(MinecraftServer server, MinecraftServerA
 
   private Candidate toCandidate(final String suggestionText, final Message descriptionMessage) {
     final @Nullable String description = Optional.ofNullable(descriptionMessage)
-      .map(tooltip -> {
-        final Component tooltipComponent = ComponentUtils.fromMessage(tooltip);
-        return tooltipComponent.equals(Component.empty()) ? null : this.audiences.asAdventure(tooltipComponent);
-      })
-      .map(adventure -> ANSIComponentSerializer.ansi().serialize(adventure))
+      .map(this::renderTooltip)
       .orElse(null);
     //noinspection SpellCheckingInspection
     return new MinecraftCandidate(
@@ -98,6 +112,18 @@ public record MinecraftCommandCompleter(MinecraftServer server, MinecraftServerA
     );
   }
 
+  private @Nullable String renderTooltip(final Message tooltip) {
+    if (this.audiences == null) {
+      // Without a server (i.e. benchmarks) there is nothing to resolve translatable tooltips against
+      final String string = tooltip.getString();
+      return string.isEmpty() ? null : string;
+    }
+    final Component tooltipComponent = ComponentUtils.fromMessage(tooltip);
+    return tooltipComponent.equals(Component.empty())
+      ? null
+      : ANSIComponentSerializer.ansi().serialize(this.audiences.asAdventure(tooltipComponent));
+  }
+
   private record ParseContext(String line, int suggestionStart) {
   }
 
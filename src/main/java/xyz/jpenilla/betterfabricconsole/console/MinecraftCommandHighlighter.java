@@ -23,64 +23,193 @@
  */
 package xyz.jpenilla.betterfabricconsole.console;
 
+import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.ParseResults;
-import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.context.ParsedCommandNode;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
 import com.mojang.brigadier.tree.LiteralCommandNode;
+import java.util.List;
 import java.util.regex.Pattern;
-import net.minecraft.commands.CommandSourceStack;
-import net.minecraft.server.MinecraftServer;
 import org.jline.reader.Highlighter;
 import org.jline.reader.LineReader;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
 import org.jline.utils.AttributedString;
 import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import xyz.jpenilla.betterfabricconsole.configuration.Config;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.CommandHighlightEvent;
 import xyz.jpenilla.betterfabricconsole.util.Util;
 
 @NullMarked
-public record MinecraftCommandHighlighter(
-  MinecraftServer server,
-  Config.StyleColor[] colors
-) implements Highlighter {
+public final class MinecraftCommandHighlighter<S> implements Highlighter {
+  private static final AttributedStyle ERROR_STYLE = AttributedStyle.DEFAULT.foreground(AttributedStyle.RED);
+
+  private final ConsoleCommands<S> commands;
+  private final AttributedStyle[] argumentStyles;
+  private final StructuredArgumentTokenizer.Styles syntaxStyles;
+  private final IncrementalCommandParser<S> parser = new IncrementalCommandParser<>();
+  private @Nullable Highlighted<S> last;
+
+  public MinecraftCommandHighlighter(final ConsoleCommands<S> commands, final Config config) {
+    this.commands = commands;
+    this.syntaxStyles = StructuredArgumentTokenizer.Styles.from(config);
+    final Config.StyleColor[] colors = config.highlightColors();
+    this.argumentStyles = new AttributedStyle[colors.length];
+    for (int i = 0; i < colors.length; i++) {
+      this.argumentStyles[i] = AttributedStyle.DEFAULT.foreground(colors[i].index());
+    }
+  }
+
   @Override
   public AttributedString highlight(final LineReader reader, final String buffer) {
-    final AttributedStringBuilder builder = new AttributedStringBuilder();
-    final StringReader stringReader = Util.prepareStringReader(buffer);
-    final ParseResults<CommandSourceStack> results = this.server.getCommands().getDispatcher().parse(stringReader, this.server.createCommandSourceStack());
-    int pos = 0;
-    if (buffer.startsWith("/")) {
-      builder.append("/", AttributedStyle.DEFAULT);
-      pos = 1;
+    final CommandHighlightEvent event = new CommandHighlightEvent();
+    event.begin();
+    final @Nullable Highlighted<S> previous = this.last;
+    final AttributedString result = this.highlightBuffer(reader, buffer);
+    event.end();
+    if (event.shouldCommit()) {
+      event.bufferLength = buffer.length();
+      event.cached = previous != null && previous.result() == result;
+      event.commit();
     }
+    return result;
+  }
 
+  private AttributedString highlightBuffer(final LineReader reader, final String buffer) {
+    if (buffer.indexOf('\n') == -1) {
+      final CommandDispatcher<S> dispatcher = this.commands.dispatcher();
+      final int windowSize = visibleChars(reader.getTerminal());
+      final int cursor = Math.min(reader.getBuffer().cursor(), buffer.length());
+      // Align the window to whole screens around the cursor, so it only moves once the cursor leaves the screen
+      final int windowStart = Math.max(0, (cursor / windowSize - 1) * windowSize);
+      final int windowEnd = (int) Math.min(buffer.length(), (cursor / windowSize + 2) * (long) windowSize);
+
+      // Log output and cursor movement redraw the line without changing it
+      final @Nullable Highlighted<S> last = this.last;
+      if (last != null && last.matches(dispatcher, buffer, windowStart, windowEnd)) {
+        ConsoleMetrics.highlightCacheHits().increment();
+        return last.result();
+      }
+      final AttributedStringBuilder builder = new AttributedStringBuilder(buffer.length());
+      this.highlightLine(builder, buffer, windowStart, windowEnd);
+      final AttributedString result = builder.toAttributedString();
+      this.last = new Highlighted<>(dispatcher, buffer, windowStart, windowEnd, result);
+      return result;
+    }
+
+    // Pasted block of commands, highlight each line as its own command
+    final AttributedStringBuilder builder = new AttributedStringBuilder(buffer.length());
+    int lineStart = 0;
+    int lineEnd;
+    while ((lineEnd = buffer.indexOf('\n', lineStart)) != -1) {
+      this.highlightLine(builder, buffer.substring(lineStart, lineEnd), 0, Integer.MAX_VALUE);
+      builder.append('\n');
+      lineStart = lineEnd + 1;
+    }
+    this.highlightLine(builder, buffer.substring(lineStart), 0, Integer.MAX_VALUE);
+    return builder.toAttributedString();
+  }
+
+  /**
+   * Appends the highlighted buffer, only styling the part inside the window.
+   *
+   * @param builder     builder
+   * @param buffer      single line buffer
+   * @param windowStart start of the visible window, inclusive
+   * @param windowEnd   end of the visible window, exclusive
+   */
+  private void highlightLine(final AttributedStringBuilder builder, final String buffer, final int windowStart, final int windowEnd) {
+    final long parseStart = System.nanoTime();
+    final ParseResults<S> results = this.parser.parse(
+      this.commands.dispatcher(),
+      Util.prepareStringReader(buffer),
+      this.commands::source
+    );
+    recordCommand(results, System.nanoTime() - parseStart);
+
+    int pos = 0;
+    int parsedEnd = buffer.startsWith("/") ? 1 : 0;
     int colorIndex = -1;
-    for (final ParsedCommandNode<CommandSourceStack> node : results.getContext().getLastChild().getNodes()) {
-      if (node.getRange().getStart() >= buffer.length()) {
+    for (final ParsedCommandNode<S> node : results.getContext().getLastChild().getNodes()) {
+      final int start = node.getRange().getStart();
+      if (start >= buffer.length()) {
         break;
       }
 
-      final int start = node.getRange().getStart();
       final int end = Math.min(node.getRange().getEnd(), buffer.length());
-      if (node.getNode() instanceof LiteralCommandNode) {
-        builder.append(buffer.substring(pos, start), AttributedStyle.DEFAULT);
-        builder.append(buffer.substring(start, end), AttributedStyle.DEFAULT);
-      } else {
-        if (++colorIndex >= this.colors.length) {
+      if (!(node.getNode() instanceof LiteralCommandNode)) {
+        if (++colorIndex >= this.argumentStyles.length) {
           colorIndex = 0;
         }
-        builder.append(buffer.substring(pos, start), AttributedStyle.DEFAULT);
-        builder.append(buffer.substring(start, end), AttributedStyle.DEFAULT.foreground(this.colors[colorIndex].index()));
+        if (start < windowEnd && end > windowStart) {
+          append(builder, buffer, pos, start, AttributedStyle.DEFAULT);
+          if (isStructured(node.getNode())) {
+            new StructuredArgumentTokenizer(this.syntaxStyles, builder, buffer, windowStart, windowEnd)
+              .append(start, end, this.argumentStyles[colorIndex]);
+          } else {
+            append(builder, buffer, start, end, this.argumentStyles[colorIndex]);
+          }
+          pos = end;
+        }
       }
-      pos = end;
+      parsedEnd = end;
+    }
+    append(builder, buffer, pos, parsedEnd, AttributedStyle.DEFAULT);
+
+    // Unparsed trailing input, keep the structure of a half typed NBT or JSON argument readable
+    if (parsedEnd < buffer.length() && parsedEnd < windowEnd && results.getExceptions().keySet().stream().anyMatch(MinecraftCommandHighlighter::isStructured)) {
+      new StructuredArgumentTokenizer(this.syntaxStyles, builder, buffer, windowStart, windowEnd)
+        .append(parsedEnd, buffer.length(), ERROR_STYLE);
+      return;
     }
+    final int errorStart = Math.min(Math.max(parsedEnd, windowStart), buffer.length());
+    final int errorEnd = Math.max(errorStart, Math.min(windowEnd, buffer.length()));
+    append(builder, buffer, parsedEnd, errorStart, AttributedStyle.DEFAULT);
+    append(builder, buffer, errorStart, errorEnd, ERROR_STYLE);
+    append(builder, buffer, errorEnd, buffer.length(), AttributedStyle.DEFAULT);
+  }
 
-    if (pos < buffer.length()) {
-      builder.append(buffer.substring(pos), AttributedStyle.DEFAULT.foreground(AttributedStyle.RED));
+  /**
+   * Records the parse time for the root command. Brigadier parses all arguments in one call, so time
+   * is attributed per command rather than per argument type.
+   *
+   * @param results parse results
+   * @param nanos   parse time
+   */
+  private static <S> void recordCommand(final ParseResults<S> results, final long nanos) {
+    final List<ParsedCommandNode<S>> nodes = results.getContext().getNodes();
+    if (!nodes.isEmpty() && nodes.getFirst().getNode() instanceof LiteralCommandNode<S> root) {
+      ConsoleMetrics.command(root.getLiteral()).record(nanos);
     }
+  }
 
-    return builder.toAttributedString();
+  private static boolean isStructured(final CommandNode<?> node) {
+    return node instanceof ArgumentCommandNode<?, ?> argument && StructuredArgumentTokenizer.isStructured(argument.getType());
+  }
+
+  private static void append(final AttributedStringBuilder builder, final String buffer, final int from, final int to, final AttributedStyle style) {
+    if (from < to) {
+      builder.append(buffer.substring(from, to), style);
+    }
+  }
+
+  /**
+   * Gets the number of characters that fit on screen at once, beyond that JLine
+   * scrolls the line to keep the cursor visible.
+   *
+   * @param terminal terminal
+   * @return visible characters
+   */
+  private static int visibleChars(final Terminal terminal) {
+    // getWidth and getHeight each copy the size
+    final Size size = terminal.getSize();
+    final int visible = size.getColumns() * size.getRows();
+    return visible <= 0 ? Integer.MAX_VALUE : visible;
   }
 
   @Override
@@ -90,4 +219,19 @@ public record MinecraftCommandHighlighter(
   @Override
   public void setErrorIndex(final int errorIndex) {
   }
+
+  private record Highlighted<S>(
+    CommandDispatcher<S> dispatcher,
+    String buffer,
+    int windowStart,
+    int windowEnd,
+    AttributedString result
+  ) {
+    boolean matches(final CommandDispatcher<S> dispatcher, final String buffer, final int windowStart, final int windowEnd) {
+      return this.dispatcher == dispatcher
+        && this.windowStart == windowStart
+        && this.windowEnd == windowEnd
+        && this.buffer.equals(buffer);
+    }
+  }
 }
@@ -31,27 +31,54 @@ import com.mojang.brigadier.context.ParsedCommandNode;
 import com.mojang.brigadier.context.StringRange;
 import java.util.ArrayList;
 import java.util.List;
-import net.minecraft.commands.CommandSourceStack;
-import net.minecraft.server.dedicated.DedicatedServer;
 import org.jline.reader.ParsedLine;
 import org.jline.reader.Parser;
 import org.jline.reader.SyntaxError;
 import org.jspecify.annotations.NullMarked;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.CommandParseEvent;
 
 @NullMarked
-public record MinecraftConsoleParser(DedicatedServer server) implements Parser {
+public record MinecraftConsoleParser<S>(ConsoleCommands<S> commands) implements Parser {
   @Override
-  public ParsedLine parse(final String line, final int cursor, final ParseContext context) throws SyntaxError {
-    final ParseResults<CommandSourceStack> results = this.server.getCommands().getDispatcher().parse(new StringReader(line), this.server.createCommandSourceStack());
+  public ParsedLine parse(final String buffer, final int bufferCursor, final ParseContext context) throws SyntaxError {
+    final CommandParseEvent event = new CommandParseEvent();
+    event.begin();
+    final BrigadierParsedLine parsed = this.parseLine(buffer, bufferCursor, context);
+    event.end();
+    if (event.shouldCommit()) {
+      event.bufferLength = buffer.length();
+      event.cursor = bufferCursor;
+      event.context = context.name();
+      event.words = parsed.words().size();
+      event.commit();
+    }
+    return parsed;
+  }
+
+  private BrigadierParsedLine parseLine(final String buffer, final int bufferCursor, final ParseContext context) {
+    if (context == ParseContext.ACCEPT_LINE) {
+      // Submitted commands are parsed by the server anyway, don't parse (possibly large pasted) input twice
+      return new BrigadierParsedLine(buffer, bufferCursor, 0, List.of(buffer), buffer, bufferCursor);
+    }
+
+    // Only parse the line the cursor is on when a block of commands was pasted
+    final int lineStart = buffer.lastIndexOf('\n', bufferCursor - 1) + 1;
+    final int lineEnd = buffer.indexOf('\n', bufferCursor);
+    final String line = lineStart == 0 && lineEnd == -1
+      ? buffer
+      : buffer.substring(lineStart, lineEnd == -1 ? buffer.length() : lineEnd);
+    final int cursor = bufferCursor - lineStart;
+
+    final ParseResults<S> results = this.commands.dispatcher().parse(new StringReader(line), this.commands.source());
     final ImmutableStringReader reader = results.getReader();
     final List<String> words = new ArrayList<>();
-    CommandContextBuilder<CommandSourceStack> currentContext = results.getContext();
+    CommandContextBuilder<S> currentContext = results.getContext();
     int currentWordIdx = -1;
     int wordIdx = -1;
     int inWordCursor = -1;
     if (currentContext.getRange().getLength() > 0) {
       do {
-        for (final ParsedCommandNode<CommandSourceStack> node : currentContext.getNodes()) {
+        for (final ParsedCommandNode<S> node : currentContext.getNodes()) {
           final StringRange nodeRange = node.getRange();
           final String current = nodeRange.get(reader);
           words.add(current);
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+import xyz.jpenilla.betterfabricconsole.util.BoyerMooreHorspool;
+
+/**
+ * Interactive console output filter, set with {@code better-fabric-console filter}.
+ *
+ * <p>Runs as a filter on the console appender, so hidden messages are never formatted. The expression is
+ * swapped with a single volatile write and read once per event. Logger and level terms are checked before the
+ * message text, so events they reject are never formatted either.</p>
+ */
+@NullMarked
+public final class OutputFilter extends AbstractFilter {
+  private volatile @Nullable Expression expression;
+
+  OutputFilter() {
+    super(Result.NEUTRAL, Result.DENY);
+  }
+
+  public @Nullable Expression expression() {
+    return this.expression;
+  }
+
+  /**
+   * Sets the expression messages have to match to be shown.
+   *
+   * @param expression expression, or {@code null} to show everything
+   */
+  public void expression(final @Nullable Expression expression) {
+    this.expression = expression;
+  }
+
+  @Override
+  public Result filter(final LogEvent event) {
+    final @Nullable Expression expression = this.expression;
+    if (expression == null || expression.test(event)) {
+      return this.onMatch;
+    }
+    ConsoleMetrics.filteredEvents().increment();
+    return this.onMismatch;
+  }
+
+  /**
+   * A compiled filter expression.
+   *
+   * @param source       expression as entered
+   * @param exclude      whether matching messages are hidden instead of shown
+   * @param loggerPrefix logger name prefix, or {@code null} for any logger
+   * @param minLevel     least severe level to match, or {@code null} for any level
+   * @param matcher      matches message text, or {@code null} for any text
+   */
+  public record Expression(
+    String source,
+    boolean exclude,
+    @Nullable String loggerPrefix,
+    @Nullable Level minLevel,
+    @Nullable Predicate<String> matcher
+  ) implements Predicate<LogEvent> {
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String LOGGER_TERM = "logger:";
+    private static final String LEVEL_TERM = "level:";
+
+    /**
+     * Compiles an expression. Plain text matches messages containing it and {@code /regex/} messages containing
+     * a match for the regex. The text may be preceded by {@code logger:<name>} terms, matching loggers whose name
+     * starts with {@code name}, and {@code level:<LEVEL>} terms, matching that level or more severe. All terms
+     * have to match. A leading {@code !} hides matching messages instead.
+     *
+     * <p>Text that is also a subcommand of {@code filter}, like {@code clear}, can be matched with
+     * {@code /clear/}.</p>
+     *
+     * @param source expression
+     * @return compiled expression
+     * @throws java.util.regex.PatternSyntaxException if the regex is invalid
+     * @throws IllegalArgumentException if a level term names an unknown level
+     */
+    public static Expression compile(final String source) {
+      final boolean exclude = source.length() > 1 && source.charAt(0) == '!';
+      String body = exclude ? source.substring(1) : source;
+      @Nullable String loggerPrefix = null;
+      @Nullable Level minLevel = null;
+      while (true) {
+        final int end = body.indexOf(' ');
+        final String term = end == -1 ? body : body.substring(0, end);
+        if (term.length() > LOGGER_TERM.length() && term.startsWith(LOGGER_TERM)) {
+          loggerPrefix = term.substring(LOGGER_TERM.length());
+        } else if (term.length() > LEVEL_TERM.length() && term.startsWith(LEVEL_TERM)) {
+          final String name = term.substring(LEVEL_TERM.length());
+          minLevel = Level.getLevel(name.toUpperCase(Locale.ROOT));
+          if (minLevel == null) {
+            throw new IllegalArgumentException("Unknown level '" + name + "'");
+          }
+        } else {
+          break;
+        }
+        body = end == -1 ? "" : body.substring(end + 1).stripLeading();
+      }
+      return new Expression(source, exclude, loggerPrefix, minLevel, body.isEmpty() ? null : messageMatcher(body));
+    }
+
+    private static Predicate<String> messageMatcher(final String body) {
+      if (body.length() > 2 && body.startsWith("/") && body.endsWith("/")) {
+        final String regex = body.substring(1, body.length() - 1);
+        if (!hasMetacharacters(regex)) {
+          return literal(regex);
+        }
+        final Pattern pattern = Pattern.compile(regex);
+        return text -> pattern.matcher(text).find();
+      }
+      return literal(body);
+    }
+
+    private static Predicate<String> literal(final String literal) {
+      final BoyerMooreHorspool search = new BoyerMooreHorspool(literal);
+      return search::containedIn;
+    }
+
+    private static boolean hasMetacharacters(final String regex) {
+      for (int i = 0; i < regex.length(); i++) {
+        if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) != -1) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean test(final LogEvent event) {
+      return this.matches(event) != this.exclude;
+    }
+
+    private boolean matches(final LogEvent event) {
+      if (this.minLevel != null && !event.getLevel().isMoreSpecificThan(this.minLevel)) {
+        return false;
+      }
+      if (this.loggerPrefix != null) {
+        final @Nullable String loggerName = event.getLoggerName();
+        if (loggerName == null || !loggerName.startsWith(this.loggerPrefix)) {
+          return false;
+        }
+      }
+      return this.matcher == null || this.matcher.test(event.getMessage().getFormattedMessage());
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.logging.log4j.Level;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Lock-free ring of the most recent formatted console output, for {@code better-fabric-console tail}.
+ *
+ * <p>Writers claim a sequence number and store the line in its slot, so they never wait on each other or on
+ * readers. Readers check each slot's sequence number and skip slots that were overwritten since.</p>
+ */
+@NullMarked
+public final class RecentLines {
+  private final AtomicReferenceArray<@Nullable Line> ring;
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+
+  /**
+   * Creates a ring.
+   *
+   * @param capacity minimum number of lines kept, rounded up to a power of two
+   */
+  RecentLines(final int capacity) {
+    final int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    this.ring = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  public int capacity() {
+    return this.ring.length();
+  }
+
+  void add(final Level level, final String text) {
+    final long sequence = this.next.getAndIncrement();
+    this.ring.set((int) (sequence & this.mask), new Line(sequence, level, text));
+  }
+
+  /**
+   * Gets the most recent lines, oldest first.
+   *
+   * @param count    maximum number of lines
+   * @param minLevel least severe level to include
+   * @return lines
+   */
+  public List<Line> tail(final int count, final Level minLevel) {
+    final long end = this.next.get();
+    final long start = Math.max(0, end - this.ring.length());
+    final List<Line> lines = new ArrayList<>(Math.min(count, this.ring.length()));
+    for (long sequence = end - 1; sequence >= start && lines.size() < count; sequence--) {
+      final @Nullable Line line = this.ring.get((int) (sequence & this.mask));
+      if (line != null && line.sequence() == sequence && line.level().isMoreSpecificThan(minLevel)) {
+        lines.add(line);
+      }
+    }
+    Collections.reverse(lines);
+    return lines;
+  }
+
+  /**
+   * A line of console output.
+   *
+   * @param sequence number of the line since startup
+   * @param level    level of the event it was formatted from
+   * @param text     formatted text with ANSI escapes, as printed
+   */
+  public record Line(long sequence, Level level, String text) {
+  }
+}
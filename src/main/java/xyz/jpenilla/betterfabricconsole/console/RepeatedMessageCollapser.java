@@ -0,0 +1,194 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.util.function.Consumer;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Drops consecutive repeats of a log message within a time window, and reports them as one summary line
+ * once a different message arrives or the window ends.
+ *
+ * <p>Events are compared by logger, level and message pattern first, which is cheap for the common case of a
+ * different message. Parameterized messages are then compared by their text, so lines that only share a
+ * pattern (like chat, or {@code "{}"}) are not merged. Events with a throwable are never collapsed, so a
+ * new exception behind a repeated message is always shown, repeated traces are folded separately.</p>
+ *
+ * <p>Summary lines are built under the collapser's lock but written after releasing it. Writing takes the
+ * line reader's lock, and the console thread logs while holding that one.</p>
+ */
+@NullMarked
+final class RepeatedMessageCollapser {
+  private final long windowNanos;
+  private final Consumer<LogEvent> output;
+  private @Nullable Repeated last;
+
+  /**
+   * Creates a collapser.
+   *
+   * @param windowNanos window after the first occurrence of a message in which repeats are collapsed
+   * @param output      where summary lines go
+   */
+  RepeatedMessageCollapser(final long windowNanos, final Consumer<LogEvent> output) {
+    this.windowNanos = windowNanos;
+    this.output = output;
+  }
+
+  long windowNanos() {
+    return this.windowNanos;
+  }
+
+  /**
+   * Checks whether the event repeats the previous one. If it doesn't, the previous message's repeats are
+   * reported before returning.
+   *
+   * @param event event
+   * @param now   {@link System#nanoTime()}
+   * @return whether to drop the event
+   */
+  boolean suppress(final LogEvent event, final long now) {
+    final @Nullable LogEvent summary;
+    synchronized (this) {
+      if (event.getThrown() != null) {
+        summary = this.flush();
+        this.last = null;
+      } else {
+        final Message message = event.getMessage();
+        final @Nullable String format = message.getFormat();
+        final String pattern = format == null ? message.getFormattedMessage() : format;
+        final @Nullable Repeated last = this.last;
+        if (last != null && now - last.since < this.windowNanos && last.matches(event, message, pattern)) {
+          last.count++;
+          return true;
+        }
+
+        summary = this.flush();
+        this.last = new Repeated(
+          event.getLoggerName(),
+          event.getLevel(),
+          event.getThreadName(),
+          pattern,
+          hasParameters(message) ? message.getFormattedMessage() : null,
+          now
+        );
+      }
+    }
+    if (summary != null) {
+      this.output.accept(summary);
+    }
+    return false;
+  }
+
+  /**
+   * Reports the repeats of the previous message if its window has ended. Called periodically, so repeats
+   * at the end of a burst aren't held back until the next message.
+   *
+   * @param now {@link System#nanoTime()}
+   */
+  void expire(final long now) {
+    @Nullable LogEvent summary = null;
+    synchronized (this) {
+      final @Nullable Repeated last = this.last;
+      if (last != null && now - last.since >= this.windowNanos) {
+        summary = this.flush();
+        this.last = null;
+      }
+    }
+    if (summary != null) {
+      this.output.accept(summary);
+    }
+  }
+
+  /**
+   * Builds the summary of the previous message's repeats and resets their count. Must be called with the lock
+   * held, and the summary written after releasing it.
+   *
+   * @return summary, or {@code null} if there were no repeats
+   */
+  private @Nullable LogEvent flush() {
+    final @Nullable Repeated last = this.last;
+    if (last == null || last.count == 0) {
+      return null;
+    }
+    final String summary = "Previous message repeated " + last.count + (last.count == 1 ? " more time" : " more times");
+    last.count = 0;
+    return Log4jLogEvent.newBuilder()
+      .setLoggerName(last.loggerName)
+      .setLevel(last.level)
+      .setThreadName(last.threadName)
+      .setTimeMillis(System.currentTimeMillis())
+      .setMessage(new SimpleMessage(summary))
+      .build();
+  }
+
+  private static boolean hasParameters(final Message message) {
+    final Object @Nullable [] parameters = message.getParameters();
+    return parameters != null && parameters.length != 0;
+  }
+
+  private static final class Repeated {
+    final String loggerName;
+    final Level level;
+    final @Nullable String threadName;
+    final String pattern;
+    final int patternHash;
+    // Only kept for parameterized messages, otherwise the pattern is the text
+    final @Nullable String text;
+    final long since;
+    int count;
+
+    Repeated(
+      final String loggerName,
+      final Level level,
+      final @Nullable String threadName,
+      final String pattern,
+      final @Nullable String text,
+      final long since
+    ) {
+      this.loggerName = loggerName;
+      this.level = level;
+      this.threadName = threadName;
+      this.pattern = pattern;
+      this.patternHash = pattern.hashCode();
+      this.text = text;
+      this.since = since;
+    }
+
+    boolean matches(final LogEvent event, final Message message, final String pattern) {
+      if (event.getLevel() != this.level
+        || pattern.hashCode() != this.patternHash
+        || !pattern.equals(this.pattern)
+        || !event.getLoggerName().equals(this.loggerName)) {
+        return false;
+      }
+      return this.text == null ? !hasParameters(message) : this.text.equals(message.getFormattedMessage());
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import org.jline.utils.AttributedString;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.util.BoyerMooreHorspool;
+
+/**
+ * Fixed size history of console output lines, kept UTF-8 encoded in a direct buffer.
+ *
+ * <p>Line bytes go into a ring over the buffer, and a second ring indexes the start and length of each line,
+ * addressed by its absolute line number. Appends overwrite the oldest bytes and evict the lines they covered,
+ * so an append is constant time and memory use never changes after construction.</p>
+ */
+@NullMarked
+final class Scrollback {
+  // Only a cap, lines are usually much longer
+  private static final int MIN_AVERAGE_LINE_BYTES = 32;
+
+  private final ByteBuffer data;
+  private final int capacity;
+  private final long[] starts;
+  private final int[] lengths;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private ByteBuffer scratch = ByteBuffer.allocate(1024);
+  // Absolute byte offset of the next write
+  private long head;
+  private long firstLine;
+  private long lineCount;
+  private long heldSince = -1;
+  // Appends that weren't held and are still being printed
+  private int printing;
+
+  Scrollback(final int capacityBytes) {
+    this.capacity = capacityBytes;
+    this.data = ByteBuffer.allocateDirect(capacityBytes);
+    final int maxLines = Math.max(1, capacityBytes / MIN_AVERAGE_LINE_BYTES);
+    this.starts = new long[maxLines];
+    this.lengths = new int[maxLines];
+  }
+
+  /**
+   * Appends printed output, one line per line break.
+   *
+   * <p>If the output isn't held, the caller prints it and then calls {@link #printed()}, so {@link #hold()}
+   * knows when the terminal is free.</p>
+   *
+   * @param output output, usually ending with a line break
+   * @return whether the terminal is held by {@link #hold()}, meaning the output shouldn't be printed now
+   */
+  synchronized boolean append(final String output) {
+    int lineStart = 0;
+    int lineEnd;
+    while ((lineEnd = output.indexOf('\n', lineStart)) != -1) {
+      this.appendLine(output, lineStart, lineEnd > lineStart && output.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd);
+      lineStart = lineEnd + 1;
+    }
+    if (lineStart < output.length()) {
+      this.appendLine(output, lineStart, output.length());
+    }
+    if (this.heldSince != -1) {
+      return true;
+    }
+    this.printing++;
+    return false;
+  }
+
+  /**
+   * Marks output that {@link #append(String)} didn't hold as printed.
+   */
+  synchronized void printed() {
+    this.printing--;
+  }
+
+  private void appendLine(final String output, final int start, final int end) {
+    final ByteBuffer encoded = this.encode(output, start, end);
+    // Keep room for other lines if someone prints a novel
+    final int length = Math.min(encoded.remaining(), this.capacity / 4);
+
+    final long lineStart = this.head;
+    final int position = (int) (lineStart % this.capacity);
+    final int firstPart = Math.min(length, this.capacity - position);
+    this.data.put(position, encoded, encoded.position(), firstPart);
+    if (firstPart < length) {
+      this.data.put(0, encoded, encoded.position() + firstPart, length - firstPart);
+    }
+    this.head += length;
+
+    final int slots = this.starts.length;
+    if (this.lineCount - this.firstLine == slots) {
+      this.firstLine++;
+    }
+    final int slot = (int) (this.lineCount % slots);
+    this.starts[slot] = lineStart;
+    this.lengths[slot] = length;
+    this.lineCount++;
+    // Evict lines whose bytes were overwritten
+    while (this.starts[(int) (this.firstLine % slots)] < this.head - this.capacity) {
+      this.firstLine++;
+    }
+  }
+
+  private ByteBuffer encode(final String output, final int start, final int end) {
+    final int maxBytes = (int) ((end - start) * this.encoder.maxBytesPerChar());
+    if (this.scratch.capacity() < maxBytes) {
+      this.scratch = ByteBuffer.allocate(Math.max(maxBytes, this.scratch.capacity() * 2));
+    }
+    this.scratch.clear();
+    this.encoder.reset();
+    this.encoder.encode(CharBuffer.wrap(output, start, end), this.scratch, true);
+    this.encoder.flush(this.scratch);
+    return this.scratch.flip();
+  }
+
+  synchronized long firstLine() {
+    return this.firstLine;
+  }
+
+  synchronized long lineCount() {
+    return this.lineCount;
+  }
+
+  /**
+   * Gets a line, including its ANSI escapes.
+   *
+   * @param line absolute line number
+   * @return line, or {@code null} if it was evicted or doesn't exist yet
+   */
+  synchronized @Nullable String line(final long line) {
+    if (line < this.firstLine || line >= this.lineCount) {
+      return null;
+    }
+    final int slot = (int) (line % this.starts.length);
+    final int position = (int) (this.starts[slot] % this.capacity);
+    final int length = this.lengths[slot];
+    final byte[] bytes = new byte[length];
+    final int firstPart = Math.min(length, this.capacity - position);
+    this.data.get(position, bytes, 0, firstPart);
+    if (firstPart < length) {
+      this.data.get(0, bytes, firstPart, length - firstPart);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Finds the closest line containing the text, ignoring ANSI escapes.
+   *
+   * @param search    text to find
+   * @param from      line to start at, inclusive
+   * @param backwards whether to search towards older lines
+   * @return line number, or {@code -1} if not found
+   */
+  long find(final BoyerMooreHorspool search, final long from, final boolean backwards) {
+    final long step = backwards ? -1 : 1;
+    for (long line = from; ; line += step) {
+      // Lines are read one at a time, so output isn't blocked for the whole search
+      final @Nullable String text = this.line(line);
+      if (text == null) {
+        return -1;
+      }
+      if (search.containedIn(AttributedString.stripAnsi(text))) {
+        return line;
+      }
+    }
+  }
+
+  /**
+   * Holds output while the scrollback is shown, {@link #append(String)} will report it as held.
+   *
+   * <p>Output appended before may still be printing. The terminal may only be taken over once this returns
+   * {@code true}, calling it again keeps the lines held since the first call.</p>
+   *
+   * @return whether no output is being printed anymore
+   */
+  synchronized boolean hold() {
+    if (this.heldSince == -1) {
+      this.heldSince = this.lineCount;
+    }
+    return this.printing == 0;
+  }
+
+  /**
+   * Stops holding output.
+   *
+   * @return lines held since {@link #hold()}, which still need printing
+   */
+  synchronized Held release() {
+    final Held held = new Held(this.heldSince == -1 ? this.lineCount : this.heldSince, this.lineCount);
+    this.heldSince = -1;
+    return held;
+  }
+
+  /**
+   * Lines that were held.
+   *
+   * @param from first line, inclusive
+   * @param to   last line, exclusive
+   */
+  record Held(long from, long to) {
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.io.PrintWriter;
+import org.jline.keymap.BindingReader;
+import org.jline.keymap.KeyMap;
+import org.jline.reader.LineReader;
+import org.jline.reader.Reference;
+import org.jline.reader.Widget;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.jline.utils.InfoCmp.Capability;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.util.BoyerMooreHorspool;
+
+/**
+ * Full screen pager over the {@link Scrollback}, opened with Page Up from the prompt.
+ *
+ * <p>Output logged while it is open is held and printed after it closes. The pager runs as a widget and so
+ * holds the reader's lock until it closes. It only opens once no output is on its way to the terminal, since
+ * that output would wait for the lock.</p>
+ */
+@NullMarked
+final class ScrollbackPager implements Widget {
+  static final String WIDGET = "better-fabric-console-scrollback";
+  private static final String HELP = "q quit, arrows/PgUp/PgDn/Home/End scroll, / search older, n older, N newer";
+
+  private final LineReader reader;
+  private final Scrollback scrollback;
+  private final String key;
+
+  private ScrollbackPager(final LineReader reader, final Scrollback scrollback, final String key) {
+    this.reader = reader;
+    this.scrollback = scrollback;
+    this.key = key;
+  }
+
+  /**
+   * Registers the pager widget and binds it to Page Up.
+   *
+   * @param reader     line reader
+   * @param scrollback scrollback
+   * @return whether the terminal supports the pager
+   */
+  static boolean install(final LineReader reader, final Scrollback scrollback) {
+    final Terminal terminal = reader.getTerminal();
+    final @Nullable String pageUp = key(terminal, Capability.key_ppage);
+    if (pageUp == null || terminal.getStringCapability(Capability.enter_ca_mode) == null) {
+      return false;
+    }
+    reader.getWidgets().put(WIDGET, new ScrollbackPager(reader, scrollback, pageUp));
+    reader.getKeyMaps().get(LineReader.MAIN).bind(new Reference(WIDGET), pageUp);
+    return true;
+  }
+
+  @Override
+  public boolean apply() {
+    final Terminal terminal = this.reader.getTerminal();
+    if (!this.scrollback.hold()) {
+      // Output that passed the hold check is waiting for the reader's lock, let it through and open after
+      this.reader.runMacro(this.key);
+      return true;
+    }
+    try {
+      terminal.puts(Capability.enter_ca_mode);
+      terminal.puts(Capability.keypad_xmit);
+      this.page(terminal);
+    } finally {
+      terminal.puts(Capability.keypad_local);
+      terminal.puts(Capability.exit_ca_mode);
+      terminal.flush();
+      this.printHeld(terminal);
+    }
+    return true;
+  }
+
+  private void page(final Terminal terminal) {
+    final KeyMap<Operation> keys = keys(terminal);
+    final BindingReader bindings = new BindingReader(terminal.reader());
+    final Size size = terminal.getSize();
+    final int visible = Math.max(1, size.getRows() - 1);
+    final int width = Math.max(1, size.getColumns());
+
+    long top = Long.MAX_VALUE;
+    long match = -1;
+    @Nullable BoyerMooreHorspool search = null;
+    @Nullable String status = null;
+    while (true) {
+      final long first = this.scrollback.firstLine();
+      top = Math.max(first, Math.min(top, Math.max(first, this.scrollback.lineCount() - visible)));
+      this.render(terminal, top, visible, width, match, status);
+      status = null;
+
+      final @Nullable Operation operation = bindings.readBinding(keys);
+      if (operation == null) {
+        return;
+      }
+      long found = -2;
+      switch (operation) {
+        case UP -> top--;
+        case DOWN -> top++;
+        case PAGE_UP -> top -= visible;
+        case PAGE_DOWN -> top += visible;
+        case TOP -> top = Long.MIN_VALUE;
+        case BOTTOM -> top = Long.MAX_VALUE;
+        case SEARCH -> {
+          final @Nullable String query = this.readQuery(terminal, bindings, visible, width);
+          if (query != null && !query.isEmpty()) {
+            search = new BoyerMooreHorspool(query);
+            found = this.scrollback.find(search, Math.min(top + visible, this.scrollback.lineCount()) - 1, true);
+          }
+        }
+        case OLDER -> found = search == null ? -2 : this.scrollback.find(search, (match == -1 ? top + visible : match) - 1, true);
+        case NEWER -> found = search == null ? -2 : this.scrollback.find(search, (match == -1 ? top : match) + 1, false);
+        case QUIT -> {
+          return;
+        }
+        default -> {
+        }
+      }
+      if (found == -1) {
+        status = "No more matches";
+      } else if (found >= 0) {
+        match = found;
+        top = found - visible / 2;
+      }
+    }
+  }
+
+  private void render(
+    final Terminal terminal,
+    final long top,
+    final int visible,
+    final int width,
+    final long match,
+    final @Nullable String status
+  ) {
+    final PrintWriter writer = terminal.writer();
+    terminal.puts(Capability.clear_screen);
+    for (int row = 0; row < visible; row++) {
+      final @Nullable String line = this.scrollback.line(top + row);
+      if (line == null) {
+        continue;
+      }
+      terminal.puts(Capability.cursor_address, row, 0);
+      final AttributedString text = top + row == match
+        ? new AttributedString(AttributedString.stripAnsi(line), AttributedStyle.INVERSE)
+        : AttributedString.fromAnsi(line);
+      writer.print(text.columnSubSequence(0, width).toAnsi(terminal));
+    }
+    final long lines = this.scrollback.lineCount() - this.scrollback.firstLine();
+    final String position = "lines " + (top - this.scrollback.firstLine() + 1) + "-"
+      + Math.min(top - this.scrollback.firstLine() + visible, lines) + " of " + lines;
+    this.status(terminal, visible, width, position + " | " + (status == null ? HELP : status));
+    terminal.flush();
+  }
+
+  private void status(final Terminal terminal, final int row, final int width, final String text) {
+    terminal.puts(Capability.cursor_address, row, 0);
+    terminal.puts(Capability.clr_eol);
+    terminal.writer().print(new AttributedString(text, AttributedStyle.INVERSE).columnSubSequence(0, width).toAnsi(terminal));
+  }
+
+  private @Nullable String readQuery(final Terminal terminal, final BindingReader bindings, final int row, final int width) {
+    final StringBuilder query = new StringBuilder();
+    while (true) {
+      this.status(terminal, row, width, "/" + query);
+      terminal.flush();
+      final int c = bindings.readCharacter();
+      switch (c) {
+        case -1, 27 -> {
+          return null;
+        }
+        case '\r', '\n' -> {
+          return query.toString();
+        }
+        case 127, '\b' -> {
+          if (!query.isEmpty()) {
+            query.setLength(query.length() - 1);
+          }
+        }
+        default -> {
+          if (c >= ' ') {
+            query.appendCodePoint(c);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Prints output held while the pager was open, the same way {@link ConsoleAppender} would have.
+   */
+  private void printHeld(final Terminal terminal) {
+    final Scrollback.Held held = this.scrollback.release();
+    if (held.from() == held.to()) {
+      this.reader.callWidget(LineReader.REDRAW_LINE);
+      this.reader.callWidget(LineReader.REDISPLAY);
+      return;
+    }
+    this.reader.callWidget(LineReader.CLEAR);
+    final long evicted = Math.max(0, this.scrollback.firstLine() - held.from());
+    if (evicted > 0) {
+      terminal.writer().println(new AttributedStringBuilder()
+        .style(AttributedStyle.DEFAULT.foreground(AttributedStyle.YELLOW))
+        .append("[" + evicted + " lines logged while the scrollback was open no longer fit in it]")
+        .toAnsi(terminal));
+    }
+    for (long line = held.from() + evicted; line < held.to(); line++) {
+      final @Nullable String text = this.scrollback.line(line);
+      if (text != null) {
+        terminal.writer().println(text);
+      }
+    }
+    this.reader.callWidget(LineReader.REDRAW_LINE);
+    this.reader.callWidget(LineReader.REDISPLAY);
+    terminal.flush();
+  }
+
+  private static KeyMap<Operation> keys(final Terminal terminal) {
+    final KeyMap<Operation> keys = new KeyMap<>();
+    keys.setNomatch(Operation.NONE);
+    keys.bind(Operation.UP, "k");
+    keys.bind(Operation.DOWN, "j", "\r");
+    keys.bind(Operation.PAGE_UP, "b");
+    keys.bind(Operation.PAGE_DOWN, " ");
+    keys.bind(Operation.TOP, "g", "<");
+    keys.bind(Operation.BOTTOM, "G", ">");
+    keys.bind(Operation.SEARCH, "/");
+    keys.bind(Operation.OLDER, "n");
+    keys.bind(Operation.NEWER, "N");
+    keys.bind(Operation.QUIT, "q", KeyMap.esc(), KeyMap.ctrl('C'));
+    bind(keys, Operation.UP, terminal, Capability.key_up);
+    bind(keys, Operation.DOWN, terminal, Capability.key_down);
+    bind(keys, Operation.PAGE_UP, terminal, Capability.key_ppage);
+    bind(keys, Operation.PAGE_DOWN, terminal, Capability.key_npage);
+    bind(keys, Operation.TOP, terminal, Capability.key_home);
+    bind(keys, Operation.BOTTOM, terminal, Capability.key_end);
+    return keys;
+  }
+
+  private static void bind(final KeyMap<Operation> keys, final Operation operation, final Terminal terminal, final Capability capability) {
+    final @Nullable String key = key(terminal, capability);
+    if (key != null) {
+      keys.bind(operation, key);
+    }
+  }
+
+  private static @Nullable String key(final Terminal terminal, final Capability capability) {
+    return terminal.getStringCapability(capability) == null ? null : KeyMap.key(terminal, capability);
+  }
+
+  private enum Operation {
+    NONE,
+    UP,
+    DOWN,
+    PAGE_UP,
+    PAGE_DOWN,
+    TOP,
+    BOTTOM,
+    SEARCH,
+    OLDER,
+    NEWER,
+    QUIT
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Renders throwables for the console, printing each distinct stack trace in full once and later
+ * occurrences as a one line reference to it.
+ *
+ * <p>Throwables are fingerprinted by the class and frames of every throwable in the cause chain, but not
+ * their messages, so an exception thrown every tick with a changing message still folds. Fingerprints are
+ * looked up by hash and then compared in full, so a hash collision prints the new trace instead of
+ * referencing an unrelated one.</p>
+ */
+@NullMarked
+final class StackTraceFolder {
+  private static final int MAX_FINGERPRINTS = 256;
+  // Print in full again once the first print has likely scrolled out of view
+  private static final long REPRINT_AFTER_NANOS = TimeUnit.MINUTES.toNanos(5);
+  private static final String NEWLINE = System.lineSeparator();
+
+  private final boolean collapseLibraryFrames;
+  private final String[] libraryPackages;
+  private final Map<Long, Fingerprint> fingerprints = new LinkedHashMap<>(16, 0.75F, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Long, Fingerprint> eldest) {
+      return this.size() > MAX_FINGERPRINTS;
+    }
+  };
+  private int nextId = 1;
+
+  StackTraceFolder(final boolean collapseLibraryFrames, final List<String> libraryPackages) {
+    this.collapseLibraryFrames = collapseLibraryFrames;
+    this.libraryPackages = libraryPackages.toArray(String[]::new);
+  }
+
+  /**
+   * Appends the console rendering of a throwable, a full trace or a reference to an earlier one.
+   *
+   * @param thrown throwable
+   * @param out    output
+   */
+  void append(final Throwable thrown, final StringBuilder out) {
+    final Shape shape = new Shape(thrown);
+    final long now = System.nanoTime();
+    final int id;
+    final int repeats;
+    synchronized (this.fingerprints) {
+      final @Nullable Fingerprint known = this.fingerprints.get(shape.hash);
+      final boolean same = known != null && known.shape.equals(shape);
+      if (!same || now - known.printedAt > REPRINT_AFTER_NANOS) {
+        id = same ? known.id : this.nextId++;
+        this.fingerprints.put(shape.hash, new Fingerprint(id, shape, now));
+        repeats = 0;
+      } else {
+        id = known.id;
+        repeats = ++known.repeats;
+      }
+    }
+
+    if (repeats != 0) {
+      out.append("[repeat #").append(id).append(" x").append(repeats).append("] ").append(thrown).append(NEWLINE);
+      return;
+    }
+    out.append(thrown).append(" [trace #").append(id).append(']').append(NEWLINE);
+    final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    seen.add(thrown);
+    final StackTraceElement[] trace = shape.traces.get(0);
+    this.appendFrames(out, trace, trace.length, "");
+    this.appendEnclosed(out, thrown, trace, "", seen);
+  }
+
+  private void appendEnclosed(
+    final StringBuilder out,
+    final Throwable thrown,
+    final StackTraceElement[] trace,
+    final String prefix,
+    final Set<Throwable> seen
+  ) {
+    for (final Throwable suppressed : thrown.getSuppressed()) {
+      this.appendEnclosedTrace(out, suppressed, trace, "Suppressed: ", prefix + "\t", seen);
+    }
+    final @Nullable Throwable cause = thrown.getCause();
+    if (cause != null) {
+      this.appendEnclosedTrace(out, cause, trace, "Caused by: ", prefix, seen);
+    }
+  }
+
+  private void appendEnclosedTrace(
+    final StringBuilder out,
+    final Throwable thrown,
+    final StackTraceElement[] enclosingTrace,
+    final String caption,
+    final String prefix,
+    final Set<Throwable> seen
+  ) {
+    if (!seen.add(thrown)) {
+      out.append(prefix).append("\t[CIRCULAR REFERENCE: ").append(thrown).append(']').append(NEWLINE);
+      return;
+    }
+    final StackTraceElement[] trace = thrown.getStackTrace();
+    // Frames in common with the enclosing trace
+    int m = trace.length - 1;
+    int n = enclosingTrace.length - 1;
+    while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+      m--;
+      n--;
+    }
+    final int unique = m + 1;
+
+    out.append(prefix).append(caption).append(thrown).append(NEWLINE);
+    this.appendFrames(out, trace, unique, prefix);
+    if (unique != trace.length) {
+      out.append(prefix).append("\t... ").append(trace.length - unique).append(" more").append(NEWLINE);
+    }
+    this.appendEnclosed(out, thrown, trace, prefix, seen);
+  }
+
+  private void appendFrames(final StringBuilder out, final StackTraceElement[] trace, final int count, final String prefix) {
+    int library = 0;
+    for (int i = 0; i < count; i++) {
+      // Always show where it was thrown
+      if (i != 0 && this.collapseLibraryFrames && this.isLibraryFrame(trace[i])) {
+        library++;
+        continue;
+      }
+      appendLibraryFrames(out, library, prefix);
+      library = 0;
+      out.append(prefix).append("\tat ").append(trace[i]).append(NEWLINE);
+    }
+    appendLibraryFrames(out, library, prefix);
+  }
+
+  private static void appendLibraryFrames(final StringBuilder out, final int library, final String prefix) {
+    if (library != 0) {
+      out.append(prefix).append("\t... ").append(library).append(library == 1 ? " library frame" : " library frames").append(NEWLINE);
+    }
+  }
+
+  private boolean isLibraryFrame(final StackTraceElement frame) {
+    final String className = frame.getClassName();
+    for (final String libraryPackage : this.libraryPackages) {
+      if (className.startsWith(libraryPackage)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Class names and frames of every throwable in a cause chain.
+   */
+  private static final class Shape {
+    final List<String> classNames = new ArrayList<>();
+    final List<StackTraceElement[]> traces = new ArrayList<>();
+    final long hash;
+
+    Shape(final Throwable thrown) {
+      long hash = 1;
+      final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (@Nullable Throwable t = thrown; t != null && seen.add(t); t = t.getCause()) {
+        final String className = t.getClass().getName();
+        final StackTraceElement[] trace = t.getStackTrace();
+        this.classNames.add(className);
+        this.traces.add(trace);
+        hash = 31 * hash + className.hashCode();
+        for (final StackTraceElement frame : trace) {
+          hash = 31 * hash + frame.hashCode();
+        }
+      }
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (!(other instanceof final Shape shape) || shape.hash != this.hash || !shape.classNames.equals(this.classNames)) {
+        return false;
+      }
+      for (int i = 0; i < this.traces.size(); i++) {
+        if (!Arrays.equals(this.traces.get(i), shape.traces.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(this.hash);
+    }
+  }
+
+  private static final class Fingerprint {
+    final int id;
+    final Shape shape;
+    final long printedAt;
+    int repeats;
+
+    Fingerprint(final int id, final Shape shape, final long printedAt) {
+      this.id = id;
+      this.shape = shape;
+      this.printedAt = printedAt;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.server.MinecraftServer;
+import org.jline.reader.LineReader;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.jline.utils.Status;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import xyz.jpenilla.betterfabricconsole.metrics.ConsoleMetrics;
+
+/**
+ * Bottom status line with TPS, MSPT, heap, players and console output rate.
+ *
+ * <p>Refreshed from its own thread at a fixed rate, independent of log volume. Server values are read from
+ * fields the server keeps up to date anyway, so nothing runs on the tick path.</p>
+ */
+@NullMarked
+public final class StatusBar {
+  private static final String WIDGET = "better-fabric-console-status";
+  private static final long MIN_REFRESH_MILLIS = 100;
+  private static final AttributedStyle LABEL = AttributedStyle.DEFAULT.foreground(AttributedStyle.BRIGHT + AttributedStyle.BLACK);
+  private static final AttributedStyle VALUE = AttributedStyle.DEFAULT;
+  private static final AttributedStyle GOOD = AttributedStyle.DEFAULT.foreground(AttributedStyle.GREEN);
+  private static final AttributedStyle WARNING = AttributedStyle.DEFAULT.foreground(AttributedStyle.YELLOW);
+  private static final AttributedStyle BAD = AttributedStyle.DEFAULT.foreground(AttributedStyle.RED);
+
+  private final MinecraftServer server;
+  private final LineReader reader;
+  private final ScheduledExecutorService executor;
+  private volatile List<AttributedString> lines = List.of();
+  private long lastAppendedEvents = ConsoleMetrics.appendedEvents().sum();
+  private long lastRefresh = System.nanoTime();
+
+  private StatusBar(final MinecraftServer server, final LineReader reader) {
+    this.server = server;
+    this.reader = reader;
+    this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread thread = new Thread(task, "Console status bar");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts the status bar, if the terminal supports it.
+   *
+   * @param server        server
+   * @param reader        line reader
+   * @param refreshMillis refresh interval
+   */
+  public static void start(final MinecraftServer server, final LineReader reader, final long refreshMillis) {
+    final @Nullable Status status = Status.getStatus(reader.getTerminal());
+    if (status == null) {
+      return;
+    }
+    final StatusBar bar = new StatusBar(server, reader);
+    // Updates go through a widget, so they hold the reader's lock and don't interleave with log output
+    reader.getWidgets().put(WIDGET, () -> {
+      status.update(bar.lines);
+      return true;
+    });
+    final long period = Math.max(MIN_REFRESH_MILLIS, refreshMillis);
+    bar.executor.scheduleAtFixedRate(bar::refresh, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  private void refresh() {
+    if (this.server.isStopped()) {
+      this.executor.shutdown();
+      return;
+    }
+    this.lines = List.of(this.render());
+    if (this.reader.isReading()) {
+      try {
+        this.reader.callWidget(WIDGET);
+      } catch (final IllegalStateException ignored) {
+        // Stopped reading in between, the next refresh will catch up
+      }
+    }
+  }
+
+  private AttributedString render() {
+    final double mspt = this.server.getAverageTickTimeNanos() / 1_000_000.0D;
+    final double targetTps = this.server.tickRateManager().tickrate();
+    final double tps = mspt <= 0 ? targetTps : Math.min(targetTps, 1000.0D / mspt);
+    final double tickBudget = 1000.0D / targetTps;
+
+    final Runtime runtime = Runtime.getRuntime();
+    final long usedMegabytes = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+    final long maxMegabytes = runtime.maxMemory() >> 20;
+
+    final long now = System.nanoTime();
+    final long appendedEvents = ConsoleMetrics.appendedEvents().sum();
+    // Negative after a stats reset
+    final long appended = Math.max(0, appendedEvents - this.lastAppendedEvents);
+    final double linesPerSecond = appended * 1_000_000_000.0D / Math.max(1, now - this.lastRefresh);
+    this.lastAppendedEvents = appendedEvents;
+    this.lastRefresh = now;
+
+    return new AttributedStringBuilder()
+      .style(LABEL).append("TPS ")
+      .style(tps >= targetTps * 0.95D ? GOOD : tps >= targetTps * 0.75D ? WARNING : BAD).append(String.format("%.1f", tps))
+      .style(LABEL).append("  MSPT ")
+      .style(mspt <= tickBudget * 0.8D ? GOOD : mspt <= tickBudget ? WARNING : BAD).append(String.format("%.1f", mspt))
+      .style(LABEL).append("  Heap ")
+      .style(usedMegabytes < maxMegabytes * 0.85D ? VALUE : WARNING).append(usedMegabytes + "/" + maxMegabytes + " MB")
+      .style(LABEL).append("  Players ")
+      .style(VALUE).append(this.server.getPlayerCount() + "/" + this.server.getMaxPlayers())
+      .style(LABEL).append("  Console ")
+      .style(VALUE).append(String.format("%.0f lines/s", linesPerSecond))
+      .toAttributedString();
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.console;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import java.util.Arrays;
+import net.minecraft.commands.arguments.CompoundTagArgument;
+import net.minecraft.commands.arguments.ComponentArgument;
+import net.minecraft.commands.arguments.NbtPathArgument;
+import net.minecraft.commands.arguments.NbtTagArgument;
+import net.minecraft.commands.arguments.ParticleArgument;
+import net.minecraft.commands.arguments.StyleArgument;
+import net.minecraft.commands.arguments.blocks.BlockPredicateArgument;
+import net.minecraft.commands.arguments.blocks.BlockStateArgument;
+import net.minecraft.commands.arguments.item.ItemArgument;
+import net.minecraft.commands.arguments.item.ItemPredicateArgument;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.jspecify.annotations.NullMarked;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+
+/**
+ * Single pass tokenizer coloring the structure of SNBT, JSON text component and
+ * block state arguments: keys, strings, numbers, literals and brackets, with
+ * brackets that close the wrong bracket type marked as errors.
+ *
+ * <p>Consecutive characters with the same style are appended as one run, and
+ * only characters inside the visible window are styled.</p>
+ */
+@NullMarked
+final class StructuredArgumentTokenizer {
+  private static final AttributedStyle MISMATCHED_BRACKET_STYLE = AttributedStyle.BOLD.foreground(AttributedStyle.RED);
+
+  private final Styles styles;
+  private final AttributedStringBuilder builder;
+  private final String buffer;
+  private final int windowStart;
+  private final int windowEnd;
+  private char[] openBrackets = new char[8];
+  private int depth;
+  private int runStart;
+  private int runEnd;
+  private AttributedStyle runStyle = AttributedStyle.DEFAULT;
+
+  StructuredArgumentTokenizer(
+    final Styles styles,
+    final AttributedStringBuilder builder,
+    final String buffer,
+    final int windowStart,
+    final int windowEnd
+  ) {
+    this.styles = styles;
+    this.builder = builder;
+    this.buffer = buffer;
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+  }
+
+  static boolean isStructured(final ArgumentType<?> type) {
+    return type instanceof CompoundTagArgument
+      || type instanceof NbtTagArgument
+      || type instanceof NbtPathArgument
+      || type instanceof ComponentArgument
+      || type instanceof StyleArgument
+      || type instanceof ParticleArgument
+      || type instanceof BlockStateArgument
+      || type instanceof BlockPredicateArgument
+      || type instanceof ItemArgument
+      || type instanceof ItemPredicateArgument;
+  }
+
+  /**
+   * Appends {@code buffer[start, end)} to the builder.
+   *
+   * @param start      start index, inclusive
+   * @param end        end index, exclusive
+   * @param plainStyle style for top level identifiers and punctuation
+   */
+  void append(final int start, final int end, final AttributedStyle plainStyle) {
+    this.runStart = start;
+    this.runEnd = start;
+    int i = start;
+    while (i < end) {
+      final char c = this.buffer.charAt(i);
+      if (c == '"' || c == '\'') {
+        final int stringEnd = this.stringEnd(i, end, c);
+        this.emit(i, stringEnd, this.isKey(stringEnd, end) ? this.styles.key() : this.styles.string());
+        i = stringEnd;
+      } else if (c == '{' || c == '[' || c == '(') {
+        this.emit(i, i + 1, this.styles.bracket(this.depth));
+        this.push(c);
+        i++;
+      } else if (c == '}' || c == ']' || c == ')') {
+        if (this.depth > 0 && this.openBrackets[this.depth - 1] == opening(c)) {
+          this.depth--;
+          this.emit(i, i + 1, this.styles.bracket(this.depth));
+        } else {
+          this.emit(i, i + 1, MISMATCHED_BRACKET_STYLE);
+        }
+        i++;
+      } else if (this.isWordChar(c)) {
+        int wordEnd = i + 1;
+        while (wordEnd < end && this.isWordChar(this.buffer.charAt(wordEnd))) {
+          wordEnd++;
+        }
+        final AttributedStyle style;
+        if (this.depth > 0 && this.isKey(wordEnd, end)) {
+          style = this.styles.key();
+        } else if (isNumber(this.buffer, i, wordEnd)) {
+          style = this.styles.number();
+        } else {
+          style = this.depth > 0 ? this.styles.literal() : plainStyle;
+        }
+        this.emit(i, wordEnd, style);
+        i = wordEnd;
+      } else {
+        this.emit(i, i + 1, plainStyle);
+        i++;
+      }
+    }
+    this.flush();
+  }
+
+  private int stringEnd(final int quote, final int end, final char quoteChar) {
+    int i = quote + 1;
+    while (i < end) {
+      final char c = this.buffer.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == quoteChar) {
+        return i + 1;
+      } else {
+        i++;
+      }
+    }
+    // Unterminated
+    return end;
+  }
+
+  /**
+   * Checks whether the token ending at {@code tokenEnd} is followed by a key/value separator for the
+   * innermost bracket, {@code :} for compounds and JSON objects, {@code =} for block states and item components.
+   */
+  private boolean isKey(final int tokenEnd, final int end) {
+    if (this.depth == 0) {
+      return false;
+    }
+    int i = tokenEnd;
+    while (i < end && Character.isWhitespace(this.buffer.charAt(i))) {
+      i++;
+    }
+    if (i == end) {
+      return false;
+    }
+    final char separator = this.buffer.charAt(i);
+    final char bracket = this.openBrackets[this.depth - 1];
+    return bracket == '{' && separator == ':' || bracket == '[' && separator == '=';
+  }
+
+  private boolean isWordChar(final char c) {
+    if (c == ':') {
+      // Namespace separator in resource locations, except inside compounds where it separates keys and values
+      return this.depth == 0 || this.openBrackets[this.depth - 1] != '{';
+    }
+    return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == '+' || c == '#' || c == '/';
+  }
+
+  private static boolean isNumber(final String buffer, final int start, final int end) {
+    int i = start;
+    if (i < end && (buffer.charAt(i) == '-' || buffer.charAt(i) == '+')) {
+      i++;
+    }
+    if (i == end || !(Character.isDigit(buffer.charAt(i)) || buffer.charAt(i) == '.')) {
+      return false;
+    }
+    boolean digits = false;
+    for (; i < end; i++) {
+      final char c = buffer.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits = true;
+      } else if (c != '.' && c != '_' && c != 'e' && c != 'E') {
+        break;
+      }
+    }
+    // Type suffixes, like 1b, 2.5f or 3ub
+    for (int suffix = 0; suffix < 2 && i < end && "bBsSiIlLfFdDuU".indexOf(buffer.charAt(i)) != -1; suffix++) {
+      i++;
+    }
+    return digits && i == end;
+  }
+
+  private static char opening(final char closing) {
+    return switch (closing) {
+      case '}' -> '{';
+      case ']' -> '[';
+      default -> '(';
+    };
+  }
+
+  private void push(final char bracket) {
+    if (this.depth == this.openBrackets.length) {
+      this.openBrackets = Arrays.copyOf(this.openBrackets, this.depth * 2);
+    }
+    this.openBrackets[this.depth++] = bracket;
+  }
+
+  private void emit(final int from, final int to, final AttributedStyle style) {
+    if (to <= this.windowStart || from >= this.windowEnd) {
+      this.run(from, to, AttributedStyle.DEFAULT);
+      return;
+    }
+    final int styledFrom = Math.max(from, this.windowStart);
+    final int styledTo = Math.min(to, this.windowEnd);
+    this.run(from, styledFrom, AttributedStyle.DEFAULT);
+    this.run(styledFrom, styledTo, style);
+    this.run(styledTo, to, AttributedStyle.DEFAULT);
+  }
+
+  private void run(final int from, final int to, final AttributedStyle style) {
+    if (from >= to) {
+      return;
+    }
+    if (from == this.runEnd && style.equals(this.runStyle)) {
+      this.runEnd = to;
+      return;
+    }
+    this.flush();
+    this.runStart = from;
+    this.runEnd = to;
+    this.runStyle = style;
+  }
+
+  private void flush() {
+    if (this.runStart < this.runEnd) {
+      this.builder.append(this.buffer.substring(this.runStart, this.runEnd), this.runStyle);
+    }
+    this.runStart = this.runEnd;
+  }
+
+  record Styles(
+    AttributedStyle key,
+    AttributedStyle string,
+    AttributedStyle number,
+    AttributedStyle literal,
+    AttributedStyle[] brackets
+  ) {
+    static Styles from(final Config config) {
+      final Config.SyntaxColors colors = config.syntaxColors();
+      final Config.StyleColor[] bracketColors = config.highlightColors();
+      final AttributedStyle[] brackets = new AttributedStyle[Math.max(bracketColors.length, 1)];
+      Arrays.fill(brackets, AttributedStyle.DEFAULT);
+      for (int i = 0; i < bracketColors.length; i++) {
+        brackets[i] = AttributedStyle.DEFAULT.foreground(bracketColors[i].index());
+      }
+      return new Styles(
+        AttributedStyle.DEFAULT.foreground(colors.keys().index()),
+        AttributedStyle.DEFAULT.foreground(colors.strings().index()),
+        AttributedStyle.DEFAULT.foreground(colors.numbers().index()),
+        AttributedStyle.DEFAULT.foreground(colors.literals().index()),
+        brackets
+      );
+    }
+
+    AttributedStyle bracket(final int depth) {
+      return this.brackets[depth % this.brackets.length];
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Latency recorders and counters for the console pipeline.
+ */
+@NullMarked
+public final class ConsoleMetrics {
+  private static final LatencyHistogram APPEND = new LatencyHistogram();
+  private static final LatencyHistogram FORMAT = new LatencyHistogram();
+  private static final LatencyHistogram REDRAW = new LatencyHistogram();
+  private static final LatencyHistogram HIGHLIGHT = new LatencyHistogram(1);
+  private static final LatencyHistogram PARSE = new LatencyHistogram(1);
+  private static final LatencyHistogram COMPLETE = new LatencyHistogram(1);
+  private static final Map<String, LatencyHistogram> COMMANDS = new ConcurrentHashMap<>();
+  private static final Map<String, LatencyHistogram> STAGES = new LinkedHashMap<>();
+
+  private static final LongAdder APPENDED_EVENTS = new LongAdder();
+  private static final LongAdder APPENDED_CHARACTERS = new LongAdder();
+  private static final LongAdder DROPPED_EVENTS = new LongAdder();
+  private static final LongAdder COLLAPSED_EVENTS = new LongAdder();
+  private static final LongAdder RATE_LIMITED_EVENTS = new LongAdder();
+  private static final LongAdder FILTERED_EVENTS = new LongAdder();
+  private static final LongAdder REDRAWS = new LongAdder();
+  private static final LongAdder HIGHLIGHT_CACHE_HITS = new LongAdder();
+  private static final LongAdder PARSE_CACHE_HITS = new LongAdder();
+  private static final LongAdder PARSE_RESUMES = new LongAdder();
+  private static final Map<String, LongAdder> COUNTERS = new LinkedHashMap<>();
+
+  private static volatile long lastReset = System.currentTimeMillis();
+
+  static {
+    STAGES.put("append", APPEND);
+    STAGES.put("format", FORMAT);
+    STAGES.put("redraw", REDRAW);
+    STAGES.put("highlight", HIGHLIGHT);
+    STAGES.put("parse", PARSE);
+    STAGES.put("complete", COMPLETE);
+
+    COUNTERS.put("appended events", APPENDED_EVENTS);
+    COUNTERS.put("appended characters", APPENDED_CHARACTERS);
+    COUNTERS.put("dropped events", DROPPED_EVENTS);
+    COUNTERS.put("collapsed repeats", COLLAPSED_EVENTS);
+    COUNTERS.put("rate limited events", RATE_LIMITED_EVENTS);
+    COUNTERS.put("filtered events", FILTERED_EVENTS);
+    COUNTERS.put("prompt redraws", REDRAWS);
+    COUNTERS.put("highlight cache hits", HIGHLIGHT_CACHE_HITS);
+    COUNTERS.put("parse cache hits", PARSE_CACHE_HITS);
+    COUNTERS.put("incremental parses", PARSE_RESUMES);
+  }
+
+  private ConsoleMetrics() {
+  }
+
+  /**
+   * Time spent in the console appender per log event, including formatting and redrawing.
+   *
+   * @return recorder
+   */
+  public static LatencyHistogram append() {
+    return APPEND;
+  }
+
+  public static LatencyHistogram format() {
+    return FORMAT;
+  }
+
+  public static LatencyHistogram redraw() {
+    return REDRAW;
+  }
+
+  public static LatencyHistogram highlight() {
+    return HIGHLIGHT;
+  }
+
+  public static LatencyHistogram parse() {
+    return PARSE;
+  }
+
+  public static LatencyHistogram complete() {
+    return COMPLETE;
+  }
+
+  /**
+   * Gets the recorder for Brigadier parses of a root command, used to find out
+   * which (modded) commands make highlighting slow.
+   *
+   * @param command root literal
+   * @return recorder
+   */
+  public static LatencyHistogram command(final String command) {
+    return COMMANDS.computeIfAbsent(command, $ -> new LatencyHistogram(1));
+  }
+
+  public static Map<String, LatencyHistogram> commands() {
+    return COMMANDS;
+  }
+
+  public static LongAdder appendedEvents() {
+    return APPENDED_EVENTS;
+  }
+
+  public static LongAdder appendedCharacters() {
+    return APPENDED_CHARACTERS;
+  }
+
+  public static LongAdder droppedEvents() {
+    return DROPPED_EVENTS;
+  }
+
+  public static LongAdder collapsedEvents() {
+    return COLLAPSED_EVENTS;
+  }
+
+  public static LongAdder rateLimitedEvents() {
+    return RATE_LIMITED_EVENTS;
+  }
+
+  public static LongAdder filteredEvents() {
+    return FILTERED_EVENTS;
+  }
+
+  public static LongAdder redraws() {
+    return REDRAWS;
+  }
+
+  public static LongAdder highlightCacheHits() {
+    return HIGHLIGHT_CACHE_HITS;
+  }
+
+  public static LongAdder parseCacheHits() {
+    return PARSE_CACHE_HITS;
+  }
+
+  public static LongAdder parseResumes() {
+    return PARSE_RESUMES;
+  }
+
+  /**
+   * Gets the pipeline stage recorders, in pipeline order.
+   *
+   * @return stage recorders by name
+   */
+  public static Map<String, LatencyHistogram> stages() {
+    return STAGES;
+  }
+
+  public static Map<String, LongAdder> counters() {
+    return COUNTERS;
+  }
+
+  public static long lastReset() {
+    return lastReset;
+  }
+
+  public static void reset() {
+    STAGES.values().forEach(LatencyHistogram::reset);
+    COUNTERS.values().forEach(LongAdder::reset);
+    COMMANDS.clear();
+    lastReset = System.currentTimeMillis();
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the spirit of HdrHistogram.
+ *
+ * <p>Every power of two range is split into {@value #SUB_BUCKETS} linear sub-buckets,
+ * so recorded values are kept with roughly 6% precision, using a fixed amount
+ * of memory regardless of the range of recorded values.</p>
+ *
+ * <p>Counts are striped by thread, so concurrent recorders (for example
+ * several threads logging at once) don't contend on the same cache lines.</p>
+ */
+@NullMarked
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+  private static final int MAX_STRIPES = 4;
+
+  private final AtomicLongArray[] stripes;
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Creates a histogram striped for the number of available processors.
+   */
+  public LatencyHistogram() {
+    this(Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors())));
+  }
+
+  /**
+   * Creates a histogram.
+   *
+   * @param stripes number of stripes, a power of two
+   */
+  public LatencyHistogram(final int stripes) {
+    if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("stripes must be a power of two, got " + stripes);
+    }
+    this.stripes = new AtomicLongArray[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new AtomicLongArray(BUCKETS);
+    }
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param nanos value in nanoseconds, negative values are recorded as zero
+   */
+  public void record(final long nanos) {
+    final long value = Math.max(nanos, 0);
+    final int stripe = (int) Thread.currentThread().threadId() & (this.stripes.length - 1);
+    this.stripes[stripe].incrementAndGet(bucket(value));
+    long currentMax;
+    while (value > (currentMax = this.max.get())) {
+      if (this.max.compareAndSet(currentMax, value)) {
+        break;
+      }
+    }
+  }
+
+  public void reset() {
+    for (final AtomicLongArray stripe : this.stripes) {
+      for (int i = 0; i < BUCKETS; i++) {
+        stripe.set(i, 0);
+      }
+    }
+    this.max.set(0);
+  }
+
+  public Snapshot snapshot() {
+    final long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (final AtomicLongArray stripe : this.stripes) {
+      for (int i = 0; i < BUCKETS; i++) {
+        final long count = stripe.get(i);
+        counts[i] += count;
+        total += count;
+      }
+    }
+    return new Snapshot(counts, total, this.max.get());
+  }
+
+  static int bucket(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowestValue(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    final int subBucket = bucket % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  static long highestValue(final int bucket) {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValue(bucket + 1) - 1;
+  }
+
+  /**
+   * Point in time copy of a histogram.
+   *
+   * @param counts per-bucket counts
+   * @param count  total count
+   * @param max    highest recorded value
+   */
+  public record Snapshot(long[] counts, long count, long max) {
+    /**
+     * Gets the value at the given percentile.
+     *
+     * @param percentile percentile, from 0 to 100
+     * @return value in nanoseconds, or 0 when nothing was recorded
+     */
+    public long valueAtPercentile(final double percentile) {
+      if (this.count == 0) {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0D * this.count));
+      long seen = 0;
+      for (int i = 0; i < this.counts.length; i++) {
+        seen += this.counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), this.max);
+        }
+      }
+      return this.max;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.metrics;
+
+import com.mojang.logging.LogUtils;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.configuration.Config;
+
+/**
+ * Warns on the console about long GC pauses and sustained high allocation rates.
+ *
+ * <p>Pauses come from GC notifications, allocation from the per-thread allocation counters, sampled once a
+ * second and averaged with an exponential moving average over the configured window. Warnings are logged
+ * like any other message and at most one of each kind is printed per warning interval.</p>
+ */
+@NullMarked
+public final class MemoryWatchdog {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final double BYTES_PER_MEGABYTE = 1024.0D * 1024.0D;
+
+  private final Config.MemoryWatchdog config;
+  private final ThreadMXBean threads;
+  private final ScheduledExecutorService executor;
+  private final RateLimitedWarning pauseWarning;
+  private final RateLimitedWarning allocationWarning;
+  private Long2LongOpenHashMap lastThreadBytes = new Long2LongOpenHashMap();
+  private Long2DoubleOpenHashMap threadRates = new Long2DoubleOpenHashMap();
+  private long lastTotalBytes = -1;
+  private double totalRate;
+  private int samples;
+
+  private MemoryWatchdog(final Config.MemoryWatchdog config, final ThreadMXBean threads) {
+    this.config = config;
+    this.threads = threads;
+    this.pauseWarning = new RateLimitedWarning(TimeUnit.SECONDS.toNanos(config.warningIntervalSeconds()));
+    this.allocationWarning = new RateLimitedWarning(TimeUnit.SECONDS.toNanos(config.warningIntervalSeconds()));
+    this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread thread = new Thread(task, "Console memory watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts the watchdog, if enabled.
+   *
+   * @param config watchdog config
+   */
+  public static void start(final Config.MemoryWatchdog config) {
+    if (!config.enabled()) {
+      return;
+    }
+    final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final MemoryWatchdog watchdog = new MemoryWatchdog(config, threads);
+    for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter emitter) {
+        emitter.addNotificationListener((notification, handback) -> watchdog.gcNotification(notification), null, null);
+      }
+    }
+    if (config.allocationRateMegabytesPerSecond() > 0 && threads.isThreadAllocatedMemorySupported()) {
+      threads.setThreadAllocatedMemoryEnabled(true);
+      watchdog.executor.scheduleAtFixedRate(watchdog::sampleAllocations, 1, 1, TimeUnit.SECONDS);
+    }
+  }
+
+  private void gcNotification(final Notification notification) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+    final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    // ZGC and Shenandoah report their concurrent cycles separately from the pauses
+    if (info.getGcName().endsWith("Cycles")) {
+      return;
+    }
+    final long duration = info.getGcInfo().getDuration();
+    if (duration < this.config.gcPauseMillis()) {
+      return;
+    }
+    final long suppressed = this.pauseWarning.tryWarn();
+    if (suppressed >= 0) {
+      LOGGER.warn(
+        "GC pause of {}ms ({}, {}, cause: {}){}",
+        duration, info.getGcName(), info.getGcAction(), info.getGcCause(), suppressedSuffix(suppressed)
+      );
+    }
+  }
+
+  private void sampleAllocations() {
+    final long[] ids = this.threads.getAllThreadIds();
+    final long[] bytes = this.threads.getThreadAllocatedBytes(ids);
+    final long totalBytes = this.threads.getTotalThreadAllocatedBytes();
+    final double alpha = 1.0D / Math.max(1, this.config.allocationRateWindowSeconds());
+
+    // Rebuilt every sample so exited threads drop out
+    final Long2LongOpenHashMap threadBytes = new Long2LongOpenHashMap(ids.length);
+    final Long2DoubleOpenHashMap rates = new Long2DoubleOpenHashMap(ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      if (bytes[i] < 0) {
+        continue;
+      }
+      threadBytes.put(ids[i], bytes[i]);
+      if (this.lastThreadBytes.containsKey(ids[i])) {
+        final double rate = this.threadRates.get(ids[i]);
+        rates.put(ids[i], rate + alpha * (bytes[i] - this.lastThreadBytes.get(ids[i]) - rate));
+      }
+    }
+    this.lastThreadBytes = threadBytes;
+    this.threadRates = rates;
+
+    if (this.lastTotalBytes >= 0 && totalBytes >= 0) {
+      this.totalRate += alpha * (totalBytes - this.lastTotalBytes - this.totalRate);
+      this.samples++;
+    }
+    this.lastTotalBytes = totalBytes;
+
+    final double megabytesPerSecond = this.totalRate / BYTES_PER_MEGABYTE;
+    if (this.samples < this.config.allocationRateWindowSeconds() || megabytesPerSecond < this.config.allocationRateMegabytesPerSecond()) {
+      return;
+    }
+    final long suppressed = this.allocationWarning.tryWarn();
+    if (suppressed < 0) {
+      return;
+    }
+    final StringBuilder message = new StringBuilder();
+    message.append(String.format(
+      Locale.ROOT,
+      "Allocating %.0fMB/s over the last %ds%s, top threads:",
+      megabytesPerSecond, this.config.allocationRateWindowSeconds(), suppressedSuffix(suppressed)
+    ));
+    for (final Long2DoubleMap.Entry thread : this.topThreads()) {
+      final @Nullable ThreadInfo info = this.threads.getThreadInfo(thread.getLongKey(), 0);
+      message.append(String.format(
+        Locale.ROOT,
+        "%n  %7.1fMB/s  %s",
+        thread.getDoubleValue() / BYTES_PER_MEGABYTE, info == null ? "#" + thread.getLongKey() : info.getThreadName()
+      ));
+    }
+    LOGGER.warn("{}", message);
+  }
+
+  private List<Long2DoubleMap.Entry> topThreads() {
+    return this.threadRates.long2DoubleEntrySet().stream()
+      .sorted(Comparator.comparingDouble(Long2DoubleMap.Entry::getDoubleValue).reversed())
+      .limit(this.config.topThreads())
+      .toList();
+  }
+
+  private static String suppressedSuffix(final long suppressed) {
+    return suppressed == 0 ? "" : " (" + suppressed + " similar warnings suppressed)";
+  }
+
+  private static final class RateLimitedWarning {
+    private final long intervalNanos;
+    private final AtomicLong lastWarning;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    RateLimitedWarning(final long intervalNanos) {
+      this.intervalNanos = intervalNanos;
+      this.lastWarning = new AtomicLong(System.nanoTime() - intervalNanos);
+    }
+
+    /**
+     * Claims the next warning.
+     *
+     * @return number of warnings suppressed since the last one, or -1 if this one should be suppressed too
+     */
+    long tryWarn() {
+      final long now = System.nanoTime();
+      final long last = this.lastWarning.get();
+      if (now - last < this.intervalNanos || !this.lastWarning.compareAndSet(last, now)) {
+        this.suppressed.incrementAndGet();
+        return -1;
+      }
+      return this.suppressed.getAndSet(0);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("xyz.jpenilla.betterfabricconsole.ConsoleAppend")
+@Label("Console Append")
+@Description("A log event written to the console")
+@Category({"Better Fabric Console", "Output"})
+@StackTrace(false)
+public final class ConsoleAppendEvent extends ConsoleEvent {
+  @Label("Logger Name")
+  public String loggerName;
+
+  @Label("Level")
+  public String level;
+
+  @Label("Format Duration")
+  @Description("Time spent formatting the event with the console layout")
+  @Timespan
+  public long formatDuration;
+
+  @Label("Write Duration")
+  @Description("Time spent clearing the prompt and writing the formatted event")
+  @Timespan
+  public long writeDuration;
+
+  @Label("Redraw Duration")
+  @Description("Time spent redrawing the prompt and flushing the terminal")
+  @Timespan
+  public long redrawDuration;
+
+  @Label("Characters")
+  @Description("Length of the formatted event")
+  public int characters;
+}
@@ -32,6 +32,7 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.dedicated.DedicatedServer;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
+import xyz.jpenilla.betterfabricconsole.metrics.jfr.AnsiSerializeEvent;
 
 @Mixin(MinecraftServer.class)
 abstract class MinecraftServerMixin {
@@ -41,8 +42,16 @@ abstract class MinecraftServerMixin {
   )
   private String wrapMessage(final Component instance, final Operation<String> original) {
     if ((Object) this instanceof DedicatedServer dedicated) {
+      final AnsiSerializeEvent event = new AnsiSerializeEvent();
+      event.begin();
       final MinecraftServerAudiences audiences = MinecraftServerAudiences.of(dedicated);
-      return ANSIComponentSerializer.ansi().serialize(audiences.asAdventure(instance));
+      final String serialized = ANSIComponentSerializer.ansi().serialize(audiences.asAdventure(instance));
+      event.end();
+      if (event.shouldCommit()) {
+        event.outputLength = serialized.length();
+        event.commit();
+      }
+      return serialized;
     } else {
       return original.call(instance);
     }
@@ -27,15 +27,23 @@ import net.minecraft.network.protocol.game.ServerboundChatCommandPacket;
 import net.minecraft.network.protocol.game.ServerboundChatCommandSignedPacket;
 import net.minecraft.server.network.ServerGamePacketListenerImpl;
 import net.minecraft.server.network.ServerPlayerConnection;
+import org.jspecify.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import xyz.jpenilla.betterfabricconsole.BetterFabricConsole;
+import xyz.jpenilla.betterfabricconsole.audit.CommandAuditLog;
+import xyz.jpenilla.betterfabricconsole.util.TokenBucket;
 
 @Mixin(ServerGamePacketListenerImpl.class)
 abstract class ServerGamePacketListenerImplMixin implements ServerPlayerConnection {
+  @Unique
+  private @Nullable CommandAuditLog auditLog;
+  @Unique
+  private @Nullable TokenBucket commandEchoLimiter;
+
   @Inject(
     method = "handleChatCommand",
     at = @At("HEAD")
@@ -54,8 +62,14 @@ abstract class ServerGamePacketListenerImplMixin implements ServerPlayerConnecti
 
   @Unique
   private void logCommand(final String command) {
-    if (BetterFabricConsole.instance().config().logPlayerExecutedCommands()) {
-      BetterFabricConsole.LOGGER.info("{} issued server command: /{}", this.getPlayer().getGameProfile().name(), command);
+    final @Nullable CommandAuditLog audit = BetterFabricConsole.instance().commandAudit();
+    if (audit == null || !audit.enabled()) {
+      return;
+    }
+    if (audit != this.auditLog) {
+      this.auditLog = audit;
+      this.commandEchoLimiter = audit.newPlayerEchoLimiter();
     }
+    audit.record(this.getPlayer().getUUID(), this.getPlayer().getGameProfile().name(), command, this.commandEchoLimiter);
   }
 }
@@ -0,0 +1,179 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.profiler;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Stack samples merged into a call tree, with frames interned to int ids.
+ *
+ * <p>Frames are methods, line numbers are ignored so samples in different lines of a method merge.</p>
+ */
+@NullMarked
+final class FrameTrie {
+  private final Object2IntOpenHashMap<StackTraceElement> elementIds = new Object2IntOpenHashMap<>();
+  private final Object2IntOpenHashMap<String> methodIds = new Object2IntOpenHashMap<>();
+  private final List<String> methods = new ArrayList<>();
+  private final Node root = new Node(-1);
+  private long samples;
+
+  FrameTrie() {
+    this.elementIds.defaultReturnValue(-1);
+    this.methodIds.defaultReturnValue(-1);
+  }
+
+  /**
+   * Adds a sample.
+   *
+   * @param stack stack, innermost frame first
+   */
+  void add(final StackTraceElement[] stack) {
+    Node node = this.root;
+    node.total++;
+    for (int i = stack.length - 1; i >= 0; i--) {
+      node = node.child(this.frameId(stack[i]));
+      node.total++;
+    }
+    node.self++;
+    this.samples++;
+  }
+
+  private int frameId(final StackTraceElement element) {
+    final int known = this.elementIds.getInt(element);
+    if (known != -1) {
+      return known;
+    }
+    final String method = element.getClassName() + "." + element.getMethodName();
+    int id = this.methodIds.getInt(method);
+    if (id == -1) {
+      id = this.methods.size();
+      this.methods.add(method);
+      this.methodIds.put(method, id);
+    }
+    this.elementIds.put(element, id);
+    return id;
+  }
+
+  long samples() {
+    return this.samples;
+  }
+
+  /**
+   * Gets the methods with the most samples at the top of the stack.
+   *
+   * @param limit maximum number of methods
+   * @return methods, hottest first
+   */
+  List<HotMethod> hottest(final int limit) {
+    final long[] self = new long[this.methods.size()];
+    this.root.sumSelf(self);
+    final Integer[] ids = new Integer[self.length];
+    Arrays.setAll(ids, i -> i);
+    return Arrays.stream(ids)
+      .filter(id -> self[id] > 0)
+      .sorted(Comparator.comparingLong((Integer id) -> self[id]).reversed())
+      .limit(limit)
+      .map(id -> new HotMethod(this.methods.get(id), self[id]))
+      .toList();
+  }
+
+  /**
+   * Writes the samples in collapsed stack format, one {@code frame;frame;frame count} line per distinct stack,
+   * as read by flamegraph tools.
+   *
+   * @param writer writer
+   * @throws IOException on write failure
+   */
+  void writeCollapsed(final Writer writer) throws IOException {
+    final StringBuilder path = new StringBuilder();
+    if (this.root.children != null) {
+      for (final Node child : this.root.children.values()) {
+        this.writeCollapsed(writer, child, path);
+      }
+    }
+  }
+
+  private void writeCollapsed(final Writer writer, final Node node, final StringBuilder path) throws IOException {
+    final int length = path.length();
+    if (length != 0) {
+      path.append(';');
+    }
+    path.append(this.methods.get(node.frame));
+    if (node.self > 0) {
+      writer.append(path).append(' ').append(Long.toString(node.self)).append('\n');
+    }
+    if (node.children != null) {
+      for (final Node child : node.children.values()) {
+        this.writeCollapsed(writer, child, path);
+      }
+    }
+    path.setLength(length);
+  }
+
+  record HotMethod(String method, long samples) {
+  }
+
+  private static final class Node {
+    final int frame;
+    long self;
+    long total;
+    @Nullable Int2ObjectOpenHashMap<Node> children;
+
+    Node(final int frame) {
+      this.frame = frame;
+    }
+
+    Node child(final int frame) {
+      if (this.children == null) {
+        this.children = new Int2ObjectOpenHashMap<>(2);
+      }
+      Node child = this.children.get(frame);
+      if (child == null) {
+        child = new Node(frame);
+        this.children.put(frame, child);
+      }
+      return child;
+    }
+
+    void sumSelf(final long[] self) {
+      if (this.frame != -1) {
+        self[this.frame] += this.self;
+      }
+      if (this.children != null) {
+        for (final Node child : this.children.values()) {
+          child.sumSelf(self);
+        }
+      }
+    }
+  }
+}
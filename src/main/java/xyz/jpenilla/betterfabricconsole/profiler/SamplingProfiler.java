@@ -0,0 +1,192 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.profiler;
+
+import com.mojang.logging.LogUtils;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import xyz.jpenilla.betterfabricconsole.util.Util;
+
+/**
+ * Samples a thread's stack at a fixed interval from a background thread.
+ *
+ * <p>Samples taken while the thread is waiting, like the server thread parked between ticks, are counted but
+ * not profiled, so percentages are of the time the thread was busy. The report is logged, with the top
+ * methods by self time and the cost of sampling, and the full profile is written as gzipped collapsed stacks
+ * for flamegraph tools.</p>
+ */
+@NullMarked
+public final class SamplingProfiler {
+  private static final Logger LOGGER = LogUtils.getLogger();
+  private static final AtomicReference<@Nullable SamplingProfiler> ACTIVE = new AtomicReference<>();
+  private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss", Locale.ROOT);
+  private static final int TOP_METHODS = 15;
+
+  private final Thread thread;
+  private final long intervalMillis;
+  private final Path outputDirectory;
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final FrameTrie trie = new FrameTrie();
+  private final ScheduledExecutorService executor;
+  private final long startedAt = System.nanoTime();
+  private long sampleNanos;
+  private long maxSampleNanos;
+  private long missed;
+  private long waiting;
+
+  private SamplingProfiler(final Thread thread, final long intervalMillis, final Path outputDirectory) {
+    this.thread = thread;
+    this.intervalMillis = intervalMillis;
+    this.outputDirectory = outputDirectory;
+    this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      final Thread sampler = new Thread(task, "Console profiler");
+      sampler.setDaemon(true);
+      return sampler;
+    });
+  }
+
+  /**
+   * Starts profiling, unless a profile is already running.
+   *
+   * @param thread          thread to sample
+   * @param durationSeconds time after which the profile stops on its own
+   * @param intervalMillis  time between samples
+   * @param outputDirectory directory for the collapsed stacks
+   * @return whether profiling started
+   */
+  public static boolean start(final Thread thread, final long durationSeconds, final long intervalMillis, final Path outputDirectory) {
+    final SamplingProfiler profiler = new SamplingProfiler(thread, intervalMillis, outputDirectory);
+    if (!ACTIVE.compareAndSet(null, profiler)) {
+      return false;
+    }
+    profiler.executor.scheduleAtFixedRate(profiler::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    profiler.executor.schedule(() -> stop(profiler), durationSeconds, TimeUnit.SECONDS);
+    return true;
+  }
+
+  /**
+   * Stops the running profile and reports it.
+   *
+   * @return whether a profile was running
+   */
+  public static boolean stop() {
+    final @Nullable SamplingProfiler profiler = ACTIVE.get();
+    return profiler != null && stop(profiler);
+  }
+
+  private static boolean stop(final SamplingProfiler profiler) {
+    if (!ACTIVE.compareAndSet(profiler, null)) {
+      return false;
+    }
+    // Report on the sampler thread, after the last sample
+    profiler.executor.execute(() -> {
+      profiler.report();
+      profiler.executor.shutdownNow();
+    });
+    return true;
+  }
+
+  private void sample() {
+    if (Thread.currentThread().isInterrupted() || ACTIVE.get() != this) {
+      return;
+    }
+    final long start = System.nanoTime();
+    final @Nullable ThreadInfo info = this.threads.getThreadInfo(this.thread.threadId(), Integer.MAX_VALUE);
+    if (info == null) {
+      this.missed++;
+      return;
+    }
+    final Thread.State state = info.getThreadState();
+    if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING) {
+      this.waiting++;
+    } else {
+      this.trie.add(info.getStackTrace());
+    }
+    final long elapsed = System.nanoTime() - start;
+    this.sampleNanos += elapsed;
+    this.maxSampleNanos = Math.max(this.maxSampleNanos, elapsed);
+  }
+
+  private void report() {
+    final long wallNanos = System.nanoTime() - this.startedAt;
+    final long samples = this.trie.samples();
+    final long taken = samples + this.waiting;
+    final StringBuilder out = new StringBuilder();
+    out.append(String.format(
+      Locale.ROOT,
+      "Profile of '%s': %d busy samples over %.1fs every %dms, %d more while waiting",
+      this.thread.getName(), samples, wallNanos / 1_000_000_000.0D, this.intervalMillis, this.waiting
+    ));
+    if (this.missed > 0) {
+      out.append(", ").append(this.missed).append(" missed while the thread wasn't alive");
+    }
+    if (taken > 0) {
+      out.append(String.format(
+        Locale.ROOT,
+        "%nSampling cost: avg %.1fµs, max %.1fµs, %.3f%% of wall time",
+        this.sampleNanos / 1_000.0D / taken, this.maxSampleNanos / 1_000.0D, 100.0D * this.sampleNanos / wallNanos
+      ));
+    }
+    if (samples > 0) {
+      out.append(String.format(
+        Locale.ROOT,
+        "%nBusy %.1f%% of samples. Top methods by self time, of busy samples:",
+        100.0D * samples / taken
+      ));
+      for (final FrameTrie.HotMethod method : this.trie.hottest(TOP_METHODS)) {
+        out.append(String.format(Locale.ROOT, "%n  %5.1f%% %7d  %s", 100.0D * method.samples() / samples, method.samples(), method.method()));
+      }
+      try {
+        out.append(System.lineSeparator()).append("Collapsed stacks written to ").append(this.writeCollapsed());
+      } catch (final IOException ex) {
+        LOGGER.warn("Failed to write profile", ex);
+      }
+    }
+    LOGGER.info("{}", out);
+  }
+
+  private Path writeCollapsed() throws IOException {
+    Files.createDirectories(this.outputDirectory);
+    final Path file = this.outputDirectory.resolve("profile-" + LocalDateTime.now().format(FILE_TIME) + ".txt.gz");
+    try (final BufferedWriter writer = Util.gzipBufferedWriter(file)) {
+      this.trie.writeCollapsed(writer);
+    }
+    return file;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.util;
+
+import java.util.Arrays;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Boyer–Moore–Horspool substring search for a fixed pattern.
+ *
+ * <p>The bad character table is indexed by the low byte of a char, so it stays small for any alphabet.
+ * Chars sharing a low byte share the smallest of their shifts, which can only make a shift shorter.</p>
+ */
+@NullMarked
+public final class BoyerMooreHorspool {
+  private final char[] pattern;
+  private final int[] shifts = new int[256];
+
+  public BoyerMooreHorspool(final String pattern) {
+    if (pattern.isEmpty()) {
+      throw new IllegalArgumentException("Empty pattern");
+    }
+    this.pattern = pattern.toCharArray();
+    final int last = this.pattern.length - 1;
+    Arrays.fill(this.shifts, this.pattern.length);
+    for (int i = 0; i < last; i++) {
+      final int slot = this.pattern[i] & 0xFF;
+      this.shifts[slot] = Math.min(this.shifts[slot], last - i);
+    }
+  }
+
+  /**
+   * Checks whether the pattern occurs in the text.
+   *
+   * @param text text
+   * @return whether the text contains the pattern
+   */
+  public boolean containedIn(final CharSequence text) {
+    final int last = this.pattern.length - 1;
+    final int end = text.length() - last;
+    int offset = 0;
+    while (offset < end) {
+      int i = last;
+      while (text.charAt(offset + i) == this.pattern[i]) {
+        if (i == 0) {
+          return true;
+        }
+        i--;
+      }
+      offset += this.shifts[text.charAt(offset + last) & 0xFF];
+    }
+    return false;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.util;
+
+import java.util.Locale;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Times consecutive phases of a startup, for a one line summary.
+ */
+@NullMarked
+public final class PhaseTimer {
+  private final StringBuilder phases = new StringBuilder();
+  private final long startedAt = System.nanoTime();
+  private long phaseStartedAt = this.startedAt;
+
+  /**
+   * Ends the current phase and starts the next one.
+   *
+   * @param phase name of the phase that ended
+   */
+  public synchronized void mark(final String phase) {
+    final long now = System.nanoTime();
+    if (!this.phases.isEmpty()) {
+      this.phases.append(", ");
+    }
+    this.phases.append(phase).append(' ').append(millis(now - this.phaseStartedAt));
+    this.phaseStartedAt = now;
+  }
+
+  /**
+   * Gets the total time and the time of each phase.
+   *
+   * @return summary
+   */
+  public synchronized String summary() {
+    return millis(this.phaseStartedAt - this.startedAt) + " (" + this.phases + ")";
+  }
+
+  private static String millis(final long nanos) {
+    return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0D);
+  }
+}
@@ -27,10 +27,16 @@ import java.io.IOException;
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
+/**
+ * Probes the system terminal once. An interactive terminal built by the probe is kept for the console
+ * to use, instead of building a second one.
+ */
 @NullMarked
 public final class TerminalModeDetection {
   private static final boolean CONSOLE_INPUT_AVAILABLE = System.console() != null;
+  private static @Nullable Terminal TERMINAL;
   private static final TerminalMode MODE = detectMode();
 
   private TerminalModeDetection() {
@@ -41,13 +47,30 @@ public final class TerminalModeDetection {
       return TerminalMode.DUMB;
     }
 
-    try (Terminal terminal = TerminalBuilder.builder().system(true).dumb(false).build()) {
-      return Terminal.TYPE_DUMB.equals(terminal.getType()) ? TerminalMode.DUMB : TerminalMode.INTERACTIVE;
+    try {
+      final Terminal terminal = TerminalBuilder.builder().system(true).dumb(false).build();
+      if (Terminal.TYPE_DUMB.equals(terminal.getType())) {
+        terminal.close();
+        return TerminalMode.DUMB;
+      }
+      TERMINAL = terminal;
+      return TerminalMode.INTERACTIVE;
     } catch (final IOException | IllegalStateException e) {
       return TerminalMode.DUMB;
     }
   }
 
+  /**
+   * Takes the interactive terminal built while probing. Only the first call gets it.
+   *
+   * @return terminal, or {@code null} if the terminal is dumb or was already taken
+   */
+  public static synchronized @Nullable Terminal takeTerminal() {
+    final @Nullable Terminal terminal = TERMINAL;
+    TERMINAL = null;
+    return terminal;
+  }
+
   public static TerminalMode mode() {
     return MODE;
   }
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Better Fabric Console, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Jason Penilla
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.jpenilla.betterfabricconsole.util;
+
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Token bucket rate limiter, refilled lazily from {@link System#nanoTime()} when tokens are taken.
+ */
+@NullMarked
+public final class TokenBucket {
+  private final double tokensPerNano;
+  private final double capacity;
+  private double tokens;
+  private long refilledAt;
+
+  /**
+   * Creates a full bucket.
+   *
+   * @param perSecond tokens added per second
+   * @param burst     maximum tokens, i.e. how many can be taken at once after a quiet period
+   */
+  public TokenBucket(final double perSecond, final int burst) {
+    if (perSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("Invalid rate " + perSecond + "/s with burst " + burst);
+    }
+    this.tokensPerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+    this.capacity = burst;
+    this.tokens = burst;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /**
+   * Takes a token if one is available.
+   *
+   * @return whether a token was taken
+   */
+  public synchronized boolean tryAcquire() {
+    final long now = System.nanoTime();
+    this.tokens = Math.min(this.capacity, this.tokens + (now - this.refilledAt) * this.tokensPerNano);
+    this.refilledAt = now;
+    if (this.tokens < 1) {
+      return false;
+    }
+    this.tokens--;
+    return true;
+  }
+}